@@ -21,7 +21,7 @@ import com.google.common.collect.Lists;
 import com.sk89q.worldedit.BlockVector;
 import com.sk89q.worldedit.bukkit.BukkitUtil;
 import com.sk89q.worldedit.regions.Region;
-import de.xaniox.heavyspleef.core.SimpleBasicTask;
+import de.xaniox.heavyspleef.core.TickEngineTask;
 import de.xaniox.heavyspleef.core.event.GameEndEvent;
 import de.xaniox.heavyspleef.core.event.GameStartEvent;
 import de.xaniox.heavyspleef.core.event.PlayerLeaveGameEvent;
@@ -144,7 +144,7 @@ public class FlagAnvilSpleef extends IntegerFlag {
             world.playSound(block.getLocation(), anvilLandSound, 1.0f, 1.0f);
         }
 		
-		if (game.getPropertyValue(GameProperty.PLAY_BLOCK_BREAK)) {
+		if (game.getBooleanProperty(GameProperty.PLAY_BLOCK_BREAK)) {
 			world.playEffect(under.getLocation(), Effect.STEP_SOUND, material.getId());
 		}
 	}
@@ -225,7 +225,7 @@ public class FlagAnvilSpleef extends IntegerFlag {
 		}
 	}
 	
-	private class AnvilSpawnTask extends SimpleBasicTask {
+	private class AnvilSpawnTask extends TickEngineTask {
 
 		//Spawn anvil 20 blocks above the top floor
 		private static final int ANVIL_SPAWN_HEIGHT = 20;
@@ -235,7 +235,7 @@ public class FlagAnvilSpleef extends IntegerFlag {
 		private final Random random;
 		
 		public AnvilSpawnTask(Game game) {
-			super(getHeavySpleef().getPlugin(), TaskType.SYNC_REPEATING_TASK, 4L, 4L);
+			super(getHeavySpleef().getTickEngine(), game, 4L, 4L, false);
 			
 			this.game = game;
 			this.spawning = Lists.newArrayList();
@@ -276,7 +276,7 @@ public class FlagAnvilSpleef extends IntegerFlag {
 		@SuppressWarnings("deprecation")
 		@Override
 		public void run() {
-			int rateNow = (int) ((getTaskArgument(1) * getValue()) / 20);
+			int rateNow = (int) ((getPeriod() * getValue()) / 20);
 			boolean reflectExceptionPrint = false;
 			
 			List<Location> spawningCopy = Lists.newArrayList(spawning);
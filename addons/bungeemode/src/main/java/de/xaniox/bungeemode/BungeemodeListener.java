@@ -147,7 +147,7 @@ public class BungeemodeListener implements Listener, SpleefListener {
 			return;
 		}
 		
-		boolean joinOnCountdown = game.getPropertyValue(GameProperty.JOIN_ON_COUNTDOWN);
+		boolean joinOnCountdown = game.getBooleanProperty(GameProperty.JOIN_ON_COUNTDOWN);
 		if (game.getGameState() == GameState.INGAME || ((game.getGameState() == GameState.STARTING
                 || game.getGameState() == GameState.WARMUP) && !joinOnCountdown)) {
 			if (config.getSpectateWhenIngame()) {
@@ -200,7 +200,7 @@ public class BungeemodeListener implements Listener, SpleefListener {
 		if (addon.getHeavySpleef().getPlugin().isEnabled()) {
 			int restartCountdown = config.getRestartCountdown();
 			
-			new CountdownTask(addon.getHeavySpleef().getPlugin(), restartCountdown, new CountdownTask.CountdownCallback() {
+			new CountdownTask(addon.getHeavySpleef().getTickEngine(), restartCountdown, new CountdownTask.CountdownCallback() {
 				
 				@Override
 				public void onCountdownFinish(CountdownTask task) {
@@ -48,15 +48,9 @@ public class CommandLeave {
 		if (game != null) {
 			game.requestLose(player, QuitCause.SELF);
 		} else {
-			Game gameUnqueued = null;
-			for (Game otherGame : manager.getGames()) {
-				if (!otherGame.isQueued(player)) {
-					continue;
-				}
-				
-				otherGame.unqueue(player);
-				gameUnqueued = otherGame;
-				break;
+			Game gameUnqueued = heavySpleef.getMatchmaker().getQueuedGame(player);
+			if (gameUnqueued != null) {
+				gameUnqueued.unqueue(player);
 			}
 			
 			if (gameUnqueued != null) {
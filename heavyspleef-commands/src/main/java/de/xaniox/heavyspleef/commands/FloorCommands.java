@@ -33,8 +33,8 @@ import de.xaniox.heavyspleef.commands.base.*;
 import de.xaniox.heavyspleef.core.HeavySpleef;
 import de.xaniox.heavyspleef.core.Permissions;
 import de.xaniox.heavyspleef.core.RegionVisualizer;
+import de.xaniox.heavyspleef.core.floor.CompactFloor;
 import de.xaniox.heavyspleef.core.floor.Floor;
-import de.xaniox.heavyspleef.core.floor.SimpleClipboardFloor;
 import de.xaniox.heavyspleef.core.game.Game;
 import de.xaniox.heavyspleef.core.game.GameManager;
 import de.xaniox.heavyspleef.core.hook.HookReference;
@@ -99,7 +99,7 @@ public class FloorCommands {
 		}
 		
 		String floorName = context.argsLength() > 1 ? context.getString(1) : generateUniqueFloorName(game);
-		Floor floor = new SimpleClipboardFloor(floorName, clipboard);
+		Floor floor = CompactFloor.fromClipboard(floorName, clipboard);
 		
 		game.addFloor(floor);
 		player.sendMessage(i18n.getVarString(Messages.Command.FLOOR_ADDED)
@@ -0,0 +1,54 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core;
+
+import org.bukkit.block.Block;
+
+/* Packs block coordinates into a single long: 26 bits x, 26 bits z, 12 bits y */
+public final class BlockPositions {
+	
+	private static final int XZ_BITS = 26;
+	private static final int Y_BITS = 12;
+	private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+	private static final long Y_MASK = (1L << Y_BITS) - 1;
+	private static final int X_SHIFT = XZ_BITS + Y_BITS;
+	private static final int Z_SHIFT = Y_BITS;
+	
+	private BlockPositions() {}
+	
+	public static long pack(int x, int y, int z) {
+		return ((x & XZ_MASK) << X_SHIFT) | ((z & XZ_MASK) << Z_SHIFT) | (y & Y_MASK);
+	}
+	
+	public static long pack(Block block) {
+		return pack(block.getX(), block.getY(), block.getZ());
+	}
+	
+	public static int unpackX(long packed) {
+		return (int) (packed >> X_SHIFT);
+	}
+	
+	public static int unpackY(long packed) {
+		return (int) (packed << (64 - Y_BITS) >> (64 - Y_BITS));
+	}
+	
+	public static int unpackZ(long packed) {
+		return (int) (packed << (64 - X_SHIFT) >> (64 - XZ_BITS));
+	}
+	
+}
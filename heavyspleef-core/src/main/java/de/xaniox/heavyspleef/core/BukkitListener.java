@@ -17,6 +17,7 @@
  */
 package de.xaniox.heavyspleef.core;
 
+import com.google.common.collect.Lists;
 import de.xaniox.heavyspleef.core.game.Game;
 import de.xaniox.heavyspleef.core.game.GameManager;
 import de.xaniox.heavyspleef.core.player.PlayerManager;
@@ -35,10 +36,126 @@ import org.bukkit.event.entity.*;
 import org.bukkit.event.player.*;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.Collections;
+import java.util.List;
+
 public class BukkitListener implements Listener {
 	
 	private PlayerManager playerManager;
 	private GameManager gameManager;
+	private final List<EventRoute<?>> routes = Lists.newArrayList();
+	
+	private final EventRoute<PlayerInteractEvent> interactRoute = addRoute(new EventRoute<PlayerInteractEvent>(PlayerInteractEvent.class, false) {
+		@Override
+		protected void invoke(Game game, PlayerInteractEvent event, SpleefPlayer player) {
+			game.onPlayerInteract(event, player);
+		}
+	});
+	
+	private final EventRoute<BlockBreakEvent> blockBreakRoute = addRoute(new EventRoute<BlockBreakEvent>(BlockBreakEvent.class, false) {
+		@Override
+		protected void invoke(Game game, BlockBreakEvent event, SpleefPlayer player) {
+			game.onPlayerBreakBlock(event, player);
+		}
+	});
+	
+	private final EventRoute<BlockPlaceEvent> blockPlaceRoute = addRoute(new EventRoute<BlockPlaceEvent>(BlockPlaceEvent.class, false) {
+		@Override
+		protected void invoke(Game game, BlockPlaceEvent event, SpleefPlayer player) {
+			game.onPlayerPlaceBlock(event, player);
+		}
+	});
+	
+	private final EventRoute<PlayerPickupItemEvent> pickupItemRoute = addRoute(new EventRoute<PlayerPickupItemEvent>(PlayerPickupItemEvent.class, false) {
+		@Override
+		protected void invoke(Game game, PlayerPickupItemEvent event, SpleefPlayer player) {
+			game.onPlayerPickupItem(event, player);
+		}
+	});
+	
+	private final EventRoute<PlayerDropItemEvent> dropItemRoute = addRoute(new EventRoute<PlayerDropItemEvent>(PlayerDropItemEvent.class, false) {
+		@Override
+		protected void invoke(Game game, PlayerDropItemEvent event, SpleefPlayer player) {
+			game.onPlayerDropItem(event, player);
+		}
+	});
+	
+	private final EventRoute<FoodLevelChangeEvent> foodLevelChangeRoute = addRoute(new EventRoute<FoodLevelChangeEvent>(FoodLevelChangeEvent.class, false) {
+		@Override
+		protected void invoke(Game game, FoodLevelChangeEvent event, SpleefPlayer player) {
+			game.onPlayerFoodLevelChange(event, player);
+		}
+	});
+	
+	private final EventRoute<EntityDamageByEntityEvent> entityDamageByEntityRoute = addRoute(new EventRoute<EntityDamageByEntityEvent>(EntityDamageByEntityEvent.class, false) {
+		@Override
+		protected void invoke(Game game, EntityDamageByEntityEvent event, SpleefPlayer player) {
+			game.onEntityByEntityDamageEvent(event, player);
+		}
+	});
+	
+	private final EventRoute<EntityDamageEvent> entityDamageRoute = addRoute(new EventRoute<EntityDamageEvent>(EntityDamageEvent.class, false) {
+		@Override
+		protected void invoke(Game game, EntityDamageEvent event, SpleefPlayer player) {
+			game.onEntityDamageEvent(event, player);
+		}
+	});
+	
+	private final EventRoute<EntityTargetLivingEntityEvent> entityTargetRoute = addRoute(new EventRoute<EntityTargetLivingEntityEvent>(EntityTargetLivingEntityEvent.class, false) {
+		@Override
+		protected void invoke(Game game, EntityTargetLivingEntityEvent event, SpleefPlayer player) {
+			game.onEntityTargetLivingEntity(event, player);
+		}
+	});
+	
+	private final EventRoute<PlayerQuitEvent> quitRoute = addRoute(new EventRoute<PlayerQuitEvent>(PlayerQuitEvent.class, true) {
+		@Override
+		protected void invoke(Game game, PlayerQuitEvent event, SpleefPlayer player) {
+			game.onPlayerQuit(event, player);
+		}
+	});
+	
+	private final EventRoute<PlayerKickEvent> kickRoute = addRoute(new EventRoute<PlayerKickEvent>(PlayerKickEvent.class, true) {
+		@Override
+		protected void invoke(Game game, PlayerKickEvent event, SpleefPlayer player) {
+			game.onPlayerKick(event, player);
+		}
+	});
+	
+	private final EventRoute<PlayerCommandPreprocessEvent> commandPreprocessRoute = addRoute(new EventRoute<PlayerCommandPreprocessEvent>(PlayerCommandPreprocessEvent.class, true) {
+		@Override
+		protected void invoke(Game game, PlayerCommandPreprocessEvent event, SpleefPlayer player) {
+			game.onPlayerCommandPreprocess(event, player);
+		}
+	});
+	
+	private final EventRoute<PlayerDeathEvent> deathRoute = addRoute(new EventRoute<PlayerDeathEvent>(PlayerDeathEvent.class, true) {
+		@Override
+		protected void invoke(Game game, PlayerDeathEvent event, SpleefPlayer player) {
+			game.onPlayerDeath(event, player);
+		}
+	});
+	
+	private final EventRoute<PlayerRespawnEvent> respawnRoute = addRoute(new EventRoute<PlayerRespawnEvent>(PlayerRespawnEvent.class, true) {
+		@Override
+		protected void invoke(Game game, PlayerRespawnEvent event, SpleefPlayer player) {
+			game.onPlayerRespawn(event, player);
+		}
+	});
+	
+	private final EventRoute<PlayerGameModeChangeEvent> gamemodeChangeRoute = addRoute(new EventRoute<PlayerGameModeChangeEvent>(PlayerGameModeChangeEvent.class, false) {
+		@Override
+		protected void invoke(Game game, PlayerGameModeChangeEvent event, SpleefPlayer player) {
+			game.onPlayerGameModeChange(event, player);
+		}
+	});
+	
+	private final EventRoute<PlayerTeleportEvent> teleportRoute = addRoute(new EventRoute<PlayerTeleportEvent>(PlayerTeleportEvent.class, false) {
+		@Override
+		protected void invoke(Game game, PlayerTeleportEvent event, SpleefPlayer player) {
+			game.onPlayerTeleport(event, player);
+		}
+	});
 	
 	public BukkitListener(PlayerManager playerManager, GameManager gameManager, JavaPlugin plugin) {
 		this.playerManager = playerManager;
@@ -47,29 +164,38 @@ public class BukkitListener implements Listener {
 		Bukkit.getPluginManager().registerEvents(this, plugin);
 	}
 	
+	private <T extends Event> EventRoute<T> addRoute(EventRoute<T> route) {
+		routes.add(route);
+		return route;
+	}
+	
+	public List<EventRoute<?>> getRoutes() {
+		return Collections.unmodifiableList(routes);
+	}
+	
 	@EventHandler
 	public void onPlayerInteract(PlayerInteractEvent event) {
-		handlePlayerEvent(event.getPlayer(), event);
+		handlePlayerEvent(event.getPlayer(), event, interactRoute);
 	}
 	
 	@EventHandler
 	public void onPlayerBreakBlock(BlockBreakEvent event) {
-		handlePlayerEvent(event.getPlayer(), event);
+		handlePlayerEvent(event.getPlayer(), event, blockBreakRoute);
 	}
 	
 	@EventHandler
 	public void onPlayerPlaceBlock(BlockPlaceEvent event) {
-		handlePlayerEvent(event.getPlayer(), event);
+		handlePlayerEvent(event.getPlayer(), event, blockPlaceRoute);
 	}
 	
 	@EventHandler
 	public void onPlayerPickupItem(PlayerPickupItemEvent event) {
-		handlePlayerEvent(event.getPlayer(), event);
+		handlePlayerEvent(event.getPlayer(), event, pickupItemRoute);
 	}
 	
 	@EventHandler
 	public void onPlayerDropItem(PlayerDropItemEvent event) {
-		handlePlayerEvent(event.getPlayer(), event);
+		handlePlayerEvent(event.getPlayer(), event, dropItemRoute);
 	}
 	
 	@EventHandler
@@ -80,7 +206,7 @@ public class BukkitListener implements Listener {
 			return;
 		}
 		
-		handlePlayerEvent((Player)entity, event);
+		handlePlayerEvent((Player)entity, event, foodLevelChangeRoute);
 	}
 	
 	@EventHandler
@@ -101,42 +227,42 @@ public class BukkitListener implements Listener {
 		}
 		
 		Player player = (Player) livingTarget;
-		handlePlayerEvent(player, event);
+		handlePlayerEvent(player, event, entityTargetRoute);
 	}
 	
 	@EventHandler
 	public void onPlayerQuit(PlayerQuitEvent event) {
-		handlePlayerEvent(event.getPlayer(), event);
+		handlePlayerEvent(event.getPlayer(), event, quitRoute);
 	}
 	
 	@EventHandler
 	public void onPlayerKick(PlayerKickEvent event) {
-		handlePlayerEvent(event.getPlayer(), event);
+		handlePlayerEvent(event.getPlayer(), event, kickRoute);
 	}
 	
 	@EventHandler
 	public void onCommandPreprocess(PlayerCommandPreprocessEvent event) {
-		handlePlayerEvent(event.getPlayer(), event);
+		handlePlayerEvent(event.getPlayer(), event, commandPreprocessRoute);
 	}
 	
 	@EventHandler
 	public void onPlayerDeath(PlayerDeathEvent event) {
-		handlePlayerEvent(event.getEntity(), event);
+		handlePlayerEvent(event.getEntity(), event, deathRoute);
 	}
 	
 	@EventHandler
 	public void onPlayerRespawn(PlayerRespawnEvent event) {
-		handlePlayerEvent(event.getPlayer(), event);
+		handlePlayerEvent(event.getPlayer(), event, respawnRoute);
 	}
 	
 	@EventHandler
 	public void onPlayerGameModeChange(PlayerGameModeChangeEvent event) {
-		handlePlayerEvent(event.getPlayer(), event);
+		handlePlayerEvent(event.getPlayer(), event, gamemodeChangeRoute);
 	}
 	
 	@EventHandler
 	public void onPlayerTeleport(PlayerTeleportEvent event) {
-		handlePlayerEvent(event.getPlayer(), event);
+		handlePlayerEvent(event.getPlayer(), event, teleportRoute);
 	}
 	
 	private void handleEntityDamageEvent(EntityDamageEvent event) {
@@ -145,62 +271,74 @@ public class BukkitListener implements Listener {
 			return;
 		}
 		
-		handlePlayerEvent((Player) damagedEntity, event);
+		if (event instanceof EntityDamageByEntityEvent) {
+			handlePlayerEvent((Player) damagedEntity, (EntityDamageByEntityEvent) event, entityDamageByEntityRoute);
+		} else {
+			handlePlayerEvent((Player) damagedEntity, event, entityDamageRoute);
+		}
 	}
 	
-	private void handlePlayerEvent(Player bukkitPlayer, Event event) {
+	private <T extends Event> void handlePlayerEvent(Player bukkitPlayer, T event, EventRoute<T> route) {
 		SpleefPlayer player = playerManager.getSpleefPlayer(bukkitPlayer);
+		route.eventCount++;
+		
+		if (player == null) {
+			return;
+		}
 		
-		if (event instanceof PlayerRespawnEvent
-				|| event instanceof PlayerQuitEvent
-				|| event instanceof PlayerKickEvent
-				|| event instanceof PlayerCommandPreprocessEvent
-                || event instanceof PlayerDeathEvent) {
+		if (route.isBroadcast()) {
+			//Only deliver to games which keep some state of this player
 			for (Game game : gameManager.getGames()) {
-				invokeEvent(game, event, player);
+				if (!game.isInvolved(player)) {
+					continue;
+				}
+				
+				route.deliver(game, event, player);
 			}
 		} else {
 			Game game = gameManager.getGame(player);
 			if (game != null) {
-				invokeEvent(game, event, player);
+				route.deliver(game, event, player);
 			}
 		}
 	}
 	
-	private void invokeEvent(Game game, Event event, SpleefPlayer player) {
-		if (event instanceof PlayerInteractEvent) {
-			game.onPlayerInteract((PlayerInteractEvent)event, player);
-		} else if (event instanceof BlockBreakEvent) {
-			game.onPlayerBreakBlock((BlockBreakEvent)event, player);
-		} else if (event instanceof BlockPlaceEvent) {
-			game.onPlayerPlaceBlock((BlockPlaceEvent)event, player);
-		} else if (event instanceof PlayerPickupItemEvent) {
-			game.onPlayerPickupItem((PlayerPickupItemEvent)event, player);
-		} else if (event instanceof PlayerDropItemEvent) {
-			game.onPlayerDropItem((PlayerDropItemEvent)event, player);
-		} else if (event instanceof FoodLevelChangeEvent) {
-			game.onPlayerFoodLevelChange((FoodLevelChangeEvent)event, player);
-		} else if (event instanceof EntityDamageByEntityEvent) {
-			game.onEntityByEntityDamageEvent((EntityDamageByEntityEvent)event, player);
-		} else if (event instanceof EntityDamageEvent) {
-			game.onEntityDamageEvent((EntityDamageEvent) event, player);
-		} else if (event instanceof EntityTargetLivingEntityEvent) {
-			game.onEntityTargetLivingEntity((EntityTargetLivingEntityEvent) event, player);
-		} else if (event instanceof PlayerQuitEvent) {
-			game.onPlayerQuit((PlayerQuitEvent) event, player);
-		} else if (event instanceof PlayerKickEvent) {
-			game.onPlayerKick((PlayerKickEvent)event, player);
-		} else if (event instanceof PlayerCommandPreprocessEvent) {
-			game.onPlayerCommandPreprocess((PlayerCommandPreprocessEvent)event, player);
-		} else if (event instanceof PlayerDeathEvent) {
-			game.onPlayerDeath((PlayerDeathEvent)event, player);
-		} else if (event instanceof PlayerRespawnEvent) {
-			game.onPlayerRespawn((PlayerRespawnEvent)event, player);
-		} else if (event instanceof PlayerGameModeChangeEvent) {
-			game.onPlayerGameModeChange((PlayerGameModeChangeEvent)event, player);
-		} else if (event instanceof PlayerTeleportEvent) {
-			game.onPlayerTeleport((PlayerTeleportEvent)event, player);
+	public static abstract class EventRoute<T extends Event> {
+		
+		private final Class<T> eventClass;
+		private final boolean broadcast;
+		/* Only updated from the main thread */
+		private long eventCount;
+		private long deliveryCount;
+		
+		protected EventRoute(Class<T> eventClass, boolean broadcast) {
+			this.eventClass = eventClass;
+			this.broadcast = broadcast;
+		}
+		
+		public Class<T> getEventClass() {
+			return eventClass;
+		}
+		
+		public boolean isBroadcast() {
+			return broadcast;
+		}
+		
+		public long getEventCount() {
+			return eventCount;
+		}
+		
+		public long getDeliveryCount() {
+			return deliveryCount;
 		}
+		
+		private void deliver(Game game, T event, SpleefPlayer player) {
+			deliveryCount++;
+			invoke(game, event, player);
+		}
+		
+		protected abstract void invoke(Game game, T event, SpleefPlayer player);
+		
 	}
 	
 }
\ No newline at end of file
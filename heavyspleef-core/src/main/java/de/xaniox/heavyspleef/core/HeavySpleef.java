@@ -28,10 +28,12 @@ import de.xaniox.heavyspleef.core.config.*;
 import de.xaniox.heavyspleef.core.event.GlobalEventBus;
 import de.xaniox.heavyspleef.core.extension.*;
 import de.xaniox.heavyspleef.core.flag.*;
+import de.xaniox.heavyspleef.core.floor.FloorRegenerationScheduler;
 import de.xaniox.heavyspleef.core.game.Game;
 import de.xaniox.heavyspleef.core.game.GameManager;
 import de.xaniox.heavyspleef.core.game.JoinRequester;
 import de.xaniox.heavyspleef.core.game.LoseCheckerTask;
+import de.xaniox.heavyspleef.core.game.Matchmaker;
 import de.xaniox.heavyspleef.core.hook.HookManager;
 import de.xaniox.heavyspleef.core.hook.HookReference;
 import de.xaniox.heavyspleef.core.i18n.I18N;
@@ -43,6 +45,7 @@ import de.xaniox.heavyspleef.core.module.ModuleManager;
 import de.xaniox.heavyspleef.core.persistence.AsyncReadWriteHandler;
 import de.xaniox.heavyspleef.core.player.PlayerManager;
 import de.xaniox.heavyspleef.core.player.SpleefPlayer;
+import de.xaniox.heavyspleef.core.stats.StatisticWriteQueue;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.command.ConsoleCommandSender;
@@ -99,6 +102,11 @@ public final class HeavySpleef {
 	private I18NManager i18NManager;
 	private boolean gamesLoaded;
 	private JoinRequester.PvPTimerManager pvpTimerManager;
+	private FloorRegenerationScheduler regenerationScheduler;
+	private OnlinePlayerBuckets onlinePlayerBuckets;
+	private TickEngine tickEngine;
+	private Matchmaker matchmaker;
+	private StatisticWriteQueue statisticWriteQueue;
 	private Metrics metrics;
 	private Set<GamesLoadCallback> gamesLoadCallbacks;
 	
@@ -106,6 +114,7 @@ public final class HeavySpleef {
 		this.plugin = plugin;
 		this.logger = plugin.getLogger();
 		this.moduleManager = new ModuleManager(logger);
+		this.onlinePlayerBuckets = new OnlinePlayerBuckets(plugin);
 	}
 	
 	public void load() {
@@ -165,6 +174,17 @@ public final class HeavySpleef {
 	public void enable() {
 		gameManager = new GameManager(this);
 		
+		DefaultConfig config = getConfiguration(ConfigType.DEFAULT_CONFIG);
+		tickEngine = new TickEngine(this, gameManager, config.getGeneralSection().getTaskBudgetMillis());
+		tickEngine.start();
+		
+		matchmaker = new Matchmaker(this);
+		matchmaker.start();
+		
+		DatabaseConfig databaseConfig = getConfiguration(ConfigType.DATABASE_CONFIG);
+		statisticWriteQueue = new StatisticWriteQueue(this);
+		statisticWriteQueue.start(databaseConfig.getStatisticFlushInterval() * 20L);
+		
 		extensionRegistry.registerExtension(ExtensionLobbyWall.class);
 		extensionRegistry.registerExtension(JoinSignExtension.class);
 		extensionRegistry.registerExtension(LeaveSignExtension.class);
@@ -199,7 +219,9 @@ public final class HeavySpleef {
 		globalEventBus.registerListener(loseCheckTask);
 		loseCheckTask.start();
 		
-		DefaultConfig config = getConfiguration(ConfigType.DEFAULT_CONFIG);
+		regenerationScheduler = new FloorRegenerationScheduler(this);
+		regenerationScheduler.start();
+		
 		GeneralSection generalSection = config.getGeneralSection();
 		UpdateSection updateSection = config.getUpdateSection();
 		
@@ -246,6 +268,13 @@ public final class HeavySpleef {
 	
 	public void disable() {
 		gameManager.shutdown();
+		//Games being reset on shutdown must be regenerated before the server stops
+		regenerationScheduler.flush();
+		
+		//Statistics are written before the games on the same database thread
+		statisticWriteQueue.stop();
+		statisticWriteQueue.flush();
+		
 		ListenableFuture<?> future = databaseHandler.saveGames(gameManager.getGames(), null);
 		
 		try {
@@ -358,8 +387,13 @@ public final class HeavySpleef {
 		Locale locale = config.getLocalization().getLocale();
 		
 		i18NManager.reloadAll(locale);
+		//Write pending statistics with the old database handler
+		statisticWriteQueue.flush();
 		moduleManager.reloadModules();
 		
+		DatabaseConfig databaseConfig = getConfiguration(ConfigType.DATABASE_CONFIG);
+		statisticWriteQueue.start(databaseConfig.getStatisticFlushInterval() * 20L);
+		
 		GeneralSection generalSection = config.getGeneralSection();
 		CommandManagerService service = commandManager.getService();
 		DefaultCommandExecution execution = service.getExecution();
@@ -375,6 +409,9 @@ public final class HeavySpleef {
 			JoinRequester requester = game.getJoinRequester();
 			requester.setPvpTimerMode(pvpTimer > 0);
 			
+			FlagManager.GamePropertyBundle defaults = new FlagManager.DefaultGamePropertyBundle(config.getProperties());
+			game.getFlagManager().setDefaults(defaults);
+			
 			List<AbstractFlag<?>> loadedFlags = Lists.newArrayList();
 			Iterator<AbstractFlag<?>> iterator = game.getFlagManager().getFlags().iterator();
 			while (iterator.hasNext()) {
@@ -557,6 +594,26 @@ public final class HeavySpleef {
 	public JoinRequester.PvPTimerManager getPvpTimerManager() {
 		return pvpTimerManager;
 	}
+	
+	public FloorRegenerationScheduler getRegenerationScheduler() {
+		return regenerationScheduler;
+	}
+	
+	public OnlinePlayerBuckets getOnlinePlayerBuckets() {
+		return onlinePlayerBuckets;
+	}
+	
+	public TickEngine getTickEngine() {
+		return tickEngine;
+	}
+	
+	public Matchmaker getMatchmaker() {
+		return matchmaker;
+	}
+	
+	public StatisticWriteQueue getStatisticWriteQueue() {
+		return statisticWriteQueue;
+	}
 
 	public Metrics getMetrics() {
 		return metrics;
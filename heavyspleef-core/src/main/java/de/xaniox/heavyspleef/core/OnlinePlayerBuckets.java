@@ -0,0 +1,89 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/* Online players grouped by world, built at most once per tick on the main thread */
+public class OnlinePlayerBuckets {
+	
+	private final Plugin plugin;
+	private final Map<World, List<Player>> buckets;
+	private boolean valid;
+	private final Runnable invalidator = new Runnable() {
+		
+		@Override
+		public void run() {
+			buckets.clear();
+			valid = false;
+		}
+	};
+	
+	public OnlinePlayerBuckets(Plugin plugin) {
+		this.plugin = plugin;
+		this.buckets = Maps.newHashMap();
+	}
+	
+	public List<Player> getPlayers(World world) {
+		if (!Bukkit.isPrimaryThread() || !plugin.isEnabled()) {
+			//Cannot share the buckets with other threads or clear them later on
+			return collectPlayers(world);
+		}
+		
+		if (!valid) {
+			for (Player player : Bukkit.getOnlinePlayers()) {
+				World playerWorld = player.getWorld();
+				List<Player> bucket = buckets.get(playerWorld);
+				
+				if (bucket == null) {
+					bucket = Lists.newArrayList();
+					buckets.put(playerWorld, bucket);
+				}
+				
+				bucket.add(player);
+			}
+			
+			valid = true;
+			Bukkit.getScheduler().runTask(plugin, invalidator);
+		}
+		
+		List<Player> bucket = buckets.get(world);
+		return bucket != null ? Collections.unmodifiableList(bucket) : Collections.<Player>emptyList();
+	}
+	
+	private List<Player> collectPlayers(World world) {
+		List<Player> players = Lists.newArrayList();
+		for (Player player : Bukkit.getOnlinePlayers()) {
+			if (player.getWorld() == world) {
+				players.add(player);
+			}
+		}
+		
+		return players;
+	}
+	
+}
@@ -0,0 +1,284 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import de.xaniox.heavyspleef.core.game.Game;
+import de.xaniox.heavyspleef.core.game.GameManager;
+import org.apache.commons.lang.Validate;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/*
+ * Drives all periodic work of HeavySpleef from a single repeating task. Games are iterated
+ * once per tick, tickables registered for all games are phase shifted per game and
+ * non-critical tickables are deferred to the next tick once the tick budget is used up.
+ * The game which is processed first rotates every tick so that deferrals are spread
+ * over all games
+ */
+public class TickEngine extends SimpleBasicTask {
+	
+	private final GameManager gameManager;
+	private final Logger logger;
+	private final long budgetNanos;
+	/* Registrations are only added to the tick lists between two ticks */
+	private final Queue<Entry> incoming;
+	private final List<Entry> globalEntries;
+	private final List<Entry> allGameEntries;
+	private final Map<Game, GameSlot> slots;
+	private long currentTick;
+	private int nextPhase;
+	private int firstGameIndex;
+	private long tickStart;
+	private long deferredCount;
+	
+	public TickEngine(HeavySpleef heavySpleef, GameManager gameManager, int budgetMillis) {
+		super(heavySpleef.getPlugin(), TaskType.SYNC_REPEATING_TASK, 0L, 1L);
+		
+		this.gameManager = gameManager;
+		this.logger = heavySpleef.getLogger();
+		this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(budgetMillis, 1));
+		this.incoming = new ConcurrentLinkedQueue<Entry>();
+		this.globalEntries = Lists.newArrayList();
+		this.allGameEntries = Lists.newArrayList();
+		this.slots = Maps.newIdentityHashMap();
+	}
+	
+	/* Runs the tickable once per period, independent of any game */
+	public TickHandle register(Runnable tickable, long delay, long period, boolean critical) {
+		Validate.notNull(tickable, "tickable cannot be null");
+		return enqueue(new Entry(tickable, null, null, delay, period, critical));
+	}
+	
+	/* Runs the tickable once per period for every game, starting at a game specific phase */
+	public TickHandle register(GameTickable tickable, long period, boolean critical) {
+		Validate.notNull(tickable, "tickable cannot be null");
+		return enqueue(new Entry(null, tickable, null, 0, period, critical));
+	}
+	
+	/* Runs the tickable once per period for the given game only */
+	public TickHandle register(Game game, GameTickable tickable, long delay, long period, boolean critical) {
+		Validate.notNull(game, "game cannot be null");
+		Validate.notNull(tickable, "tickable cannot be null");
+		return enqueue(new Entry(null, tickable, game, delay, period, critical));
+	}
+	
+	private TickHandle enqueue(Entry entry) {
+		Validate.isTrue(entry.period > 0, "period must be positive");
+		Validate.isTrue(entry.remaining >= 0, "delay cannot be negative");
+		
+		incoming.offer(entry);
+		return entry;
+	}
+	
+	public long getCurrentTick() {
+		return currentTick;
+	}
+	
+	public long getDeferredCount() {
+		return deferredCount;
+	}
+	
+	@Override
+	public void run() {
+		currentTick++;
+		tickStart = System.nanoTime();
+		
+		Entry entry;
+		while ((entry = incoming.poll()) != null) {
+			if (entry.game != null) {
+				getSlot(entry.game).entries.add(entry);
+			} else if (entry.gameTickable != null) {
+				allGameEntries.add(entry);
+				
+				for (GameSlot slot : slots.values()) {
+					slot.entries.add(entry.forSlot(slot));
+				}
+			} else {
+				globalEntries.add(entry);
+			}
+		}
+		
+		Iterator<Entry> allGameIterator = allGameEntries.iterator();
+		while (allGameIterator.hasNext()) {
+			if (allGameIterator.next().isCancelled()) {
+				allGameIterator.remove();
+			}
+		}
+		
+		processEntries(globalEntries, null);
+		
+		List<Game> games = gameManager.getGames();
+		int gameCount = games.size();
+		firstGameIndex = gameCount > 0 ? (firstGameIndex + 1) % gameCount : 0;
+		
+		for (int i = 0; i < gameCount; i++) {
+			Game game = games.get((firstGameIndex + i) % gameCount);
+			GameSlot slot = getSlot(game);
+			slot.lastTick = currentTick;
+			
+			processEntries(slot.entries, game);
+		}
+		
+		if (slots.size() > games.size()) {
+			//Drop the slots and tickables of games which have been removed
+			Iterator<GameSlot> iterator = slots.values().iterator();
+			while (iterator.hasNext()) {
+				if (iterator.next().lastTick != currentTick) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+	
+	private GameSlot getSlot(Game game) {
+		GameSlot slot = slots.get(game);
+		if (slot == null) {
+			slot = new GameSlot(nextPhase++);
+			slots.put(game, slot);
+			
+			for (Entry entry : allGameEntries) {
+				if (!entry.cancelled) {
+					slot.entries.add(entry.forSlot(slot));
+				}
+			}
+		}
+		
+		return slot;
+	}
+	
+	private void processEntries(List<Entry> entries, Game game) {
+		boolean hasCancelled = false;
+		
+		for (int i = 0; i < entries.size(); i++) {
+			Entry entry = entries.get(i);
+			if (entry.isCancelled()) {
+				hasCancelled = true;
+				continue;
+			}
+			
+			if (entry.remaining > 0) {
+				entry.remaining--;
+				continue;
+			}
+			
+			if (!entry.critical && System.nanoTime() - tickStart > budgetNanos) {
+				//Stays due and is tried again on the next tick
+				deferredCount++;
+				continue;
+			}
+			
+			entry.remaining = entry.period - 1;
+			
+			try {
+				if (entry.gameTickable != null) {
+					entry.gameTickable.tick(game);
+				} else {
+					entry.tickable.run();
+				}
+			} catch (RuntimeException e) {
+				logger.log(Level.SEVERE, "Unhandled exception while ticking " + entry.getName(), e);
+			}
+		}
+		
+		if (hasCancelled) {
+			Iterator<Entry> iterator = entries.iterator();
+			while (iterator.hasNext()) {
+				if (iterator.next().isCancelled()) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+	
+	public interface TickHandle {
+		
+		public void cancel();
+		
+		public boolean isCancelled();
+		
+	}
+	
+	private static class GameSlot {
+		
+		private final int phase;
+		private final List<Entry> entries;
+		private long lastTick;
+		
+		public GameSlot(int phase) {
+			this.phase = phase;
+			this.entries = Lists.newArrayList();
+		}
+		
+	}
+	
+	private static class Entry implements TickHandle {
+		
+		private final Runnable tickable;
+		private final GameTickable gameTickable;
+		private final Game game;
+		private final long period;
+		private final boolean critical;
+		/* The registration this entry has been derived from for a single game */
+		private final Entry parent;
+		private long remaining;
+		private volatile boolean cancelled;
+		
+		public Entry(Runnable tickable, GameTickable gameTickable, Game game, long delay, long period, boolean critical) {
+			this(tickable, gameTickable, game, delay, period, critical, null);
+		}
+		
+		private Entry(Runnable tickable, GameTickable gameTickable, Game game, long delay, long period, boolean critical, Entry parent) {
+			this.tickable = tickable;
+			this.gameTickable = gameTickable;
+			this.game = game;
+			this.remaining = delay;
+			this.period = period;
+			this.critical = critical;
+			this.parent = parent;
+		}
+		
+		public Entry forSlot(GameSlot slot) {
+			return new Entry(null, gameTickable, null, slot.phase % period, period, critical, this);
+		}
+		
+		public String getName() {
+			return (tickable != null ? tickable : gameTickable).getClass().getName();
+		}
+		
+		@Override
+		public void cancel() {
+			cancelled = true;
+		}
+		
+		@Override
+		public boolean isCancelled() {
+			return cancelled || (parent != null && parent.cancelled);
+		}
+		
+	}
+	
+}
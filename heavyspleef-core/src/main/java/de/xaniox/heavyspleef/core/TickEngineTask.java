@@ -0,0 +1,97 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core;
+
+import de.xaniox.heavyspleef.core.TickEngine.TickHandle;
+import de.xaniox.heavyspleef.core.game.Game;
+import org.apache.commons.lang.Validate;
+
+/* Counterpart of SimpleBasicTask for repeating work which is driven by the tick engine */
+public abstract class TickEngineTask implements BasicTask {
+	
+	private final TickEngine engine;
+	private final Game game;
+	private final long delay;
+	private final long period;
+	private final boolean critical;
+	private TickHandle handle;
+	
+	public TickEngineTask(TickEngine engine, long delay, long period, boolean critical) {
+		this(engine, null, delay, period, critical);
+	}
+	
+	/* Game bound tasks are dropped by the engine once the game has been removed */
+	public TickEngineTask(TickEngine engine, Game game, long delay, long period, boolean critical) {
+		Validate.notNull(engine, "engine cannot be null");
+		
+		this.engine = engine;
+		this.game = game;
+		this.delay = delay;
+		this.period = period;
+		this.critical = critical;
+	}
+	
+	public long getPeriod() {
+		return period;
+	}
+	
+	@Override
+	public TaskType getTaskType() {
+		return TaskType.SYNC_REPEATING_TASK;
+	}
+	
+	@Override
+	public void start() {
+		if (isRunning()) {
+			throw new IllegalStateException("Task is already running");
+		}
+		
+		if (game != null) {
+			handle = engine.register(game, new GameTickable() {
+				
+				@Override
+				public void tick(Game game) {
+					run();
+				}
+			}, delay, period, critical);
+		} else {
+			handle = engine.register(this, delay, period, critical);
+		}
+	}
+	
+	@Override
+	public void cancel() {
+		if (!isRunning()) {
+			throw new IllegalStateException("Task is not running");
+		}
+		
+		handle.cancel();
+		handle = null;
+	}
+	
+	@Override
+	public boolean isSync() {
+		return true;
+	}
+	
+	@Override
+	public boolean isRunning() {
+		return handle != null && !handle.isCancelled();
+	}
+	
+}
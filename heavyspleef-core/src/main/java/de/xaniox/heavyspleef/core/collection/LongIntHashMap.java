@@ -0,0 +1,200 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core.collection;
+
+import org.apache.commons.lang.Validate;
+
+import java.util.Arrays;
+
+public class LongIntHashMap {
+	
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final float LOAD_FACTOR = 0.6f;
+	
+	private final int noEntryValue;
+	private long[] keys;
+	private int[] values;
+	private boolean[] allocated;
+	private int size;
+	private int resizeThreshold;
+	
+	public LongIntHashMap(int noEntryValue) {
+		this(DEFAULT_CAPACITY, noEntryValue);
+	}
+	
+	public LongIntHashMap(int expectedSize, int noEntryValue) {
+		Validate.isTrue(expectedSize >= 0, "expectedSize cannot be negative");
+		
+		this.noEntryValue = noEntryValue;
+		allocate(tableSizeFor((int) (expectedSize / LOAD_FACTOR) + 1));
+	}
+	
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		allocated = new boolean[capacity];
+		resizeThreshold = (int) (capacity * LOAD_FACTOR);
+	}
+	
+	private static int tableSizeFor(int n) {
+		int capacity = Integer.highestOneBit(Math.max(n, DEFAULT_CAPACITY) - 1) << 1;
+		return capacity < 0 ? 1 << 30 : capacity;
+	}
+	
+	private static int hash(long key) {
+		//Murmur3 finalizer to spread packed coordinates over the table
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		
+		return (int) key;
+	}
+	
+	private int indexOf(long key) {
+		int mask = keys.length - 1;
+		int index = hash(key) & mask;
+		
+		while (allocated[index]) {
+			if (keys[index] == key) {
+				return index;
+			}
+			
+			index = (index + 1) & mask;
+		}
+		
+		return -index - 1;
+	}
+	
+	public int getNoEntryValue() {
+		return noEntryValue;
+	}
+	
+	public int get(long key) {
+		int index = indexOf(key);
+		return index >= 0 ? values[index] : noEntryValue;
+	}
+	
+	public boolean containsKey(long key) {
+		return indexOf(key) >= 0;
+	}
+	
+	public int put(long key, int value) {
+		int index = indexOf(key);
+		if (index >= 0) {
+			int previous = values[index];
+			values[index] = value;
+			return previous;
+		}
+		
+		if (size >= resizeThreshold) {
+			rehash(keys.length << 1);
+			index = indexOf(key);
+		}
+		
+		index = -index - 1;
+		keys[index] = key;
+		values[index] = value;
+		allocated[index] = true;
+		size++;
+		
+		return noEntryValue;
+	}
+	
+	public int remove(long key) {
+		int index = indexOf(key);
+		if (index < 0) {
+			return noEntryValue;
+		}
+		
+		int previous = values[index];
+		int mask = keys.length - 1;
+		
+		//Shift following entries of the probe sequence back to keep lookups free of tombstones
+		int gap = index;
+		int next = (gap + 1) & mask;
+		while (allocated[next]) {
+			int ideal = hash(keys[next]) & mask;
+			
+			if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+				keys[gap] = keys[next];
+				values[gap] = values[next];
+				gap = next;
+			}
+			
+			next = (next + 1) & mask;
+		}
+		
+		allocated[gap] = false;
+		size--;
+		
+		return previous;
+	}
+	
+	private void rehash(int newCapacity) {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		boolean[] oldAllocated = allocated;
+		
+		allocate(newCapacity);
+		
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (!oldAllocated[i]) {
+				continue;
+			}
+			
+			int index = -indexOf(oldKeys[i]) - 1;
+			keys[index] = oldKeys[i];
+			values[index] = oldValues[i];
+			allocated[index] = true;
+		}
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	public void clear() {
+		if (size == 0) {
+			return;
+		}
+		
+		Arrays.fill(allocated, false);
+		size = 0;
+	}
+	
+	public void forEach(EntryVisitor visitor) {
+		for (int i = 0; i < keys.length; i++) {
+			if (allocated[i]) {
+				visitor.visit(keys[i], values[i]);
+			}
+		}
+	}
+	
+	public interface EntryVisitor {
+		
+		public void visit(long key, int value);
+		
+	}
+	
+}
@@ -28,9 +28,11 @@ import java.util.List;
 public class DatabaseConfig extends ConfigurationObject {
 	
 	private static final int DEFAULT_MAX_CACHE_SIZE = 1024;
+	private static final int DEFAULT_FLUSH_INTERVAL = 30;
 	
 	private boolean statisticsEnabled;
 	private int maxStatisticCacheSize;
+	private int statisticFlushInterval;
 	private List<DatabaseConnection> connections;
 	
 	public DatabaseConfig(Configuration config, Object... args) {
@@ -47,6 +49,7 @@ public class DatabaseConfig extends ConfigurationObject {
 		ConfigurationSection moduleSection = config.getConfigurationSection("database-modules");
 		this.statisticsEnabled = moduleSection.getBoolean("statistics.enabled");
 		this.maxStatisticCacheSize = moduleSection.getInt("statistics.max-cache-size", DEFAULT_MAX_CACHE_SIZE);
+		this.statisticFlushInterval = Math.max(moduleSection.getInt("statistics.flush-interval", DEFAULT_FLUSH_INTERVAL), 1);
 		
 		this.connections = Lists.newArrayList();
 		ConfigurationSection connectionsSection = config.getConfigurationSection("persistence-connection");
@@ -64,6 +67,14 @@ public class DatabaseConfig extends ConfigurationObject {
 		return maxStatisticCacheSize;
 	}
 	
+	/**
+	 * Gets the interval in seconds in which changed
+	 * statistics are written to the database
+	 */
+	public int getStatisticFlushInterval() {
+		return statisticFlushInterval;
+	}
+	
 	public List<DatabaseConnection> getDatabaseConnections() {
 		return connections;
 	}
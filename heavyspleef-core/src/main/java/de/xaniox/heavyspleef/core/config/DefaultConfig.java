@@ -37,6 +37,8 @@ public class DefaultConfig extends ConfigurationObject {
 	private SignSection signSection;
     private SpectateSection spectateSection;
     private LobbySection lobbySection;
+	private RegenerationSection regenerationSection;
+	private LoseDetectionSection loseDetectionSection;
 	private UpdateSection updateSection;
 	private int configVersion;
 
@@ -86,6 +88,12 @@ public class DefaultConfig extends ConfigurationObject {
         ConfigurationSection lobbySection = config.getConfigurationSection("lobby");
         this.lobbySection = new LobbySection(lobbySection);
 		
+		ConfigurationSection regenerationSection = config.getConfigurationSection("regeneration");
+		this.regenerationSection = new RegenerationSection(regenerationSection);
+		
+		ConfigurationSection loseDetectionSection = config.getConfigurationSection("lose-detection");
+		this.loseDetectionSection = new LoseDetectionSection(loseDetectionSection);
+		
 		ConfigurationSection updateSection = config.getConfigurationSection("update");
 		this.updateSection = new UpdateSection(updateSection);
 		
@@ -173,6 +181,14 @@ public class DefaultConfig extends ConfigurationObject {
         return lobbySection;
     }
 
+	public RegenerationSection getRegenerationSection() {
+		return regenerationSection;
+	}
+	
+	public LoseDetectionSection getLoseDetectionSection() {
+		return loseDetectionSection;
+	}
+
     public UpdateSection getUpdateSection() {
 		return updateSection;
 	}
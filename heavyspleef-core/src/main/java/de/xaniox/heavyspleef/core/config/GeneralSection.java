@@ -37,6 +37,7 @@ public class GeneralSection {
     private boolean warmupMode;
     private int warmupTime;
     private boolean adventureMode;
+	private int taskBudgetMillis;
 	
 	public GeneralSection(ConfigurationSection section) {
 		String prefix = section.getString("spleef-prefix");
@@ -62,6 +63,7 @@ public class GeneralSection {
         this.warmupMode = section.getBoolean("warmup-mode", false);
         this.warmupTime = section.getInt("warmup-time", 10);
         this.adventureMode = section.getBoolean("adventure-mode", true);
+		this.taskBudgetMillis = section.getInt("task-budget-ms", 10);
 	}
 	
 	public String getSpleefPrefix() {
@@ -107,4 +109,9 @@ public class GeneralSection {
     public boolean isAdventureMode() {
         return adventureMode;
     }
+	
+	public int getTaskBudgetMillis() {
+		return taskBudgetMillis;
+	}
+	
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core.config;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+public class LoseDetectionSection {
+	
+	private static final int DEFAULT_MAX_CHECKS_PER_TICK = 50;
+	
+	private LoseDetectionMode mode;
+	private int maxChecksPerTick;
+	
+	public LoseDetectionSection(ConfigurationSection section) {
+		//This section may be missing in configurations of older versions
+		if (section == null) {
+			this.mode = LoseDetectionMode.POLLING;
+			this.maxChecksPerTick = DEFAULT_MAX_CHECKS_PER_TICK;
+			return;
+		}
+		
+		this.mode = LoseDetectionMode.byName(section.getString("mode"));
+		this.maxChecksPerTick = Math.max(section.getInt("max-checks-per-tick", DEFAULT_MAX_CHECKS_PER_TICK), 1);
+	}
+	
+	public LoseDetectionMode getMode() {
+		return mode;
+	}
+	
+	public int getMaxChecksPerTick() {
+		return maxChecksPerTick;
+	}
+	
+	public enum LoseDetectionMode {
+		
+		POLLING,
+		EVENT;
+		
+		public static LoseDetectionMode byName(String name) {
+			if (name == null) {
+				return POLLING;
+			}
+			
+			String enumName = name.toUpperCase().replace('-', '_');
+			for (LoseDetectionMode mode : values()) {
+				if (mode.name().equals(enumName)) {
+					return mode;
+				}
+			}
+			
+			return POLLING;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,110 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core.config;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+public class RegenerationSection {
+	
+	private static final double DEFAULT_MAX_DIFFERENCE_FRACTION = 0.3;
+	private static final int DEFAULT_SAMPLE_SIZE = 256;
+	private static final int DEFAULT_TICK_BUDGET_MILLIS = 5;
+	private static final int DEFAULT_BLOCKS_PER_TICK = 0;
+	
+	private boolean differential;
+	private double maxDifferenceFraction;
+	private int sampleSize;
+	private boolean timeSliced;
+	private int tickBudgetMillis;
+	private int blocksPerTick;
+	private RegeneratorType regeneratorType;
+	
+	public RegenerationSection(ConfigurationSection section) {
+		//This section may be missing in configurations of older versions
+		if (section == null) {
+			this.differential = false;
+			this.maxDifferenceFraction = DEFAULT_MAX_DIFFERENCE_FRACTION;
+			this.sampleSize = DEFAULT_SAMPLE_SIZE;
+			this.timeSliced = true;
+			this.tickBudgetMillis = DEFAULT_TICK_BUDGET_MILLIS;
+			this.blocksPerTick = DEFAULT_BLOCKS_PER_TICK;
+			this.regeneratorType = RegeneratorType.AUTO;
+			return;
+		}
+		
+		this.differential = section.getBoolean("differential", false);
+		this.maxDifferenceFraction = section.getDouble("max-difference-fraction", DEFAULT_MAX_DIFFERENCE_FRACTION);
+		this.sampleSize = Math.max(section.getInt("sample-size", DEFAULT_SAMPLE_SIZE), 0);
+		this.timeSliced = section.getBoolean("time-sliced", true);
+		this.tickBudgetMillis = section.getInt("tick-budget-ms", DEFAULT_TICK_BUDGET_MILLIS);
+		this.blocksPerTick = section.getInt("blocks-per-tick", DEFAULT_BLOCKS_PER_TICK);
+		this.regeneratorType = RegeneratorType.byName(section.getString("regenerator"));
+	}
+	
+	public boolean isDifferential() {
+		return differential;
+	}
+	
+	public double getMaxDifferenceFraction() {
+		return maxDifferenceFraction;
+	}
+	
+	public int getSampleSize() {
+		return sampleSize;
+	}
+	
+	public boolean isTimeSliced() {
+		return timeSliced;
+	}
+	
+	public int getTickBudgetMillis() {
+		return tickBudgetMillis;
+	}
+	
+	public int getBlocksPerTick() {
+		return blocksPerTick;
+	}
+	
+	public RegeneratorType getRegeneratorType() {
+		return regeneratorType;
+	}
+	
+	public enum RegeneratorType {
+		
+		AUTO,
+		WORLDEDIT,
+		CHUNK_BATCHED;
+		
+		public static RegeneratorType byName(String name) {
+			if (name == null) {
+				return AUTO;
+			}
+			
+			String enumName = name.toUpperCase().replace('-', '_');
+			for (RegeneratorType type : values()) {
+				if (type.name().equals(enumName)) {
+					return type;
+				}
+			}
+			
+			return AUTO;
+		}
+		
+	}
+	
+}
\ No newline at end of file
@@ -17,22 +17,43 @@
  */
 package de.xaniox.heavyspleef.core.event;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import java.lang.reflect.Method;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class EventBus {
 	
+	private static final EventListenerMethod[] NO_LISTENERS = new EventListenerMethod[0];
+	
 	private final Logger logger;
+	private final EventBus parent;
 	private Set<EventListenerMethod> registeredEventListeners;
+	/* Priority ordered listeners per concrete event class, built lazily on the first dispatch */
+	private Map<Class<? extends Event>, EventListenerMethod[]> dispatchCache;
+	private volatile int listenerVersion;
+	private int seenParentVersion;
 	
 	protected EventBus(Logger logger) {
+		this(logger, null);
+	}
+	
+	protected EventBus(Logger logger, EventBus parent) {
 		this.logger = logger;
+		this.parent = parent;
 		this.registeredEventListeners = Sets.newTreeSet();
+		this.dispatchCache = Maps.newConcurrentMap();
+		
+		if (parent != null) {
+			this.seenParentVersion = parent.listenerVersion;
+		}
 	}
 
 	public void registerListener(SpleefListener listener) {
@@ -41,6 +62,7 @@ public class EventBus {
 
 	public void registerListener(SpleefListener listener, boolean registerSuper) {
 		Class<? extends SpleefListener> clazz = listener.getClass();
+		List<EventListenerMethod> listenerMethods = Lists.newArrayList();
 
 		do {
 			Method[] methods = clazz.getDeclaredMethods();
@@ -49,10 +71,9 @@ public class EventBus {
 					continue;
 				}
 
-				validateMethod(method);
-
+				//Binding the listener method fails fast on invalid signatures
 				EventListenerMethod listenerMethodHolder = new EventListenerMethod(listener, method);
-				registeredEventListeners.add(listenerMethodHolder);
+				listenerMethods.add(listenerMethodHolder);
 			}
 
 			Class<?> superclass = clazz.getSuperclass();
@@ -62,6 +83,10 @@ public class EventBus {
 
 			clazz = superclass.asSubclass(SpleefListener.class);
 		} while (registerSuper);
+		
+		//Only publish the listener when all of its methods could be bound
+		registeredEventListeners.addAll(listenerMethods);
+		invalidateDispatchCache();
 	}
 	
 	public void unregister(SpleefListener listener) {
@@ -73,6 +98,7 @@ public class EventBus {
 			}
 			
 			methodIterator.remove();
+			invalidateDispatchCache();
 		}
 	}
 	
@@ -87,11 +113,9 @@ public class EventBus {
 	}
 	
 	public void callEvent(Event event) {
-		for (EventListenerMethod method : registeredEventListeners) {
-			if (!method.getEventClass().isInstance(event)) {
-				continue;
-			}
-			
+		EventListenerMethod[] listeners = getDispatchTable(event.getClass());
+		
+		for (EventListenerMethod method : listeners) {
 			try {
 				method.invoke(event);
 			} catch (Throwable t) {
@@ -100,18 +124,72 @@ public class EventBus {
 		}
 	}
 	
-	private void validateMethod(Method method) {
-		Class<?>[] parameterTypes = method.getParameterTypes();
-		if (parameterTypes.length != 1) {
-			throw new IllegalGameListenerMethodException(method, "Method " + method.getName() + " in type " + method.getDeclaringClass().getCanonicalName()
-					+ " has more or less than 1 parameter");
+	protected EventListenerMethod[] getDispatchTable(Class<? extends Event> eventClass) {
+		if (parent != null) {
+			int parentVersion = parent.listenerVersion;
+			if (parentVersion != seenParentVersion) {
+				//Listeners of the parent bus changed, merged tables are stale
+				dispatchCache.clear();
+				seenParentVersion = parentVersion;
+			}
 		}
-
-		Class<?> parameterType = parameterTypes[0];
-		if (!Event.class.isAssignableFrom(parameterType)) {
-			throw new IllegalGameListenerMethodException(method, "First parameter of method " + method.getName() + " in type "
-					+ method.getDeclaringClass().getCanonicalName() + " is not a subtype of Event");
+		
+		EventListenerMethod[] listeners = dispatchCache.get(eventClass);
+		if (listeners == null) {
+			listeners = buildDispatchTable(eventClass);
+			
+			if (parent != null) {
+				listeners = mergeByPriority(parent.getDispatchTable(eventClass), listeners);
+			}
+			
+			dispatchCache.put(eventClass, listeners);
+		}
+		
+		return listeners;
+	}
+	
+	private static EventListenerMethod[] mergeByPriority(EventListenerMethod[] first, EventListenerMethod[] second) {
+		if (first.length == 0) {
+			return second;
+		} else if (second.length == 0) {
+			return first;
+		}
+		
+		EventListenerMethod[] merged = new EventListenerMethod[first.length + second.length];
+		int firstIndex = 0;
+		int secondIndex = 0;
+		
+		for (int i = 0; i < merged.length; i++) {
+			//On equal priority the listeners of the first table are called first
+			if (secondIndex >= second.length || (firstIndex < first.length 
+					&& first[firstIndex].getPriority().getOrderId() <= second[secondIndex].getPriority().getOrderId())) {
+				merged[i] = first[firstIndex++];
+			} else {
+				merged[i] = second[secondIndex++];
+			}
 		}
+		
+		return merged;
+	}
+	
+	private EventListenerMethod[] buildDispatchTable(Class<? extends Event> eventClass) {
+		List<EventListenerMethod> matching = Lists.newArrayList();
+		
+		//Iteration order of the tree set is the priority order
+		for (EventListenerMethod method : registeredEventListeners) {
+			if (!method.getEventClass().isAssignableFrom(eventClass)) {
+				continue;
+			}
+			
+			matching.add(method);
+		}
+		
+		return matching.isEmpty() ? NO_LISTENERS : matching.toArray(new EventListenerMethod[matching.size()]);
+	}
+	
+	protected void invalidateDispatchCache() {
+		dispatchCache.clear();
+		listenerVersion++;
 	}
 	
 }
\ No newline at end of file
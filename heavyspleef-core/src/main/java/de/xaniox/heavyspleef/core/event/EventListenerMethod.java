@@ -17,36 +17,61 @@
  */
 package de.xaniox.heavyspleef.core.event;
 
-import org.apache.commons.lang.Validate;
-
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 
 public class EventListenerMethod implements Comparable<EventListenerMethod> {
 	
+	private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Event.class);
+	
 	private Object instance;
 	private Method method;
 	private Subscribe subscribe;
 	private Class<? extends Event> eventClass;
+	/* Bound to the listener instance and adapted to (Event)void once at registration */
+	private MethodHandle invoker;
 	
 	@SuppressWarnings("unchecked")
 	public EventListenerMethod(Object instance, Method method) {
 		this.instance = instance;
 		this.method = method;
 		
+		Class<?>[] parameters = method.getParameterTypes();
+		if (parameters.length != 1) {
+			throw new IllegalGameListenerMethodException(method, "Method " + method.getName() + " in type " + method.getDeclaringClass().getCanonicalName()
+					+ " must have only one parameter which must be a subtype of Event");
+		}
+		
+		Class<?> eventClass = parameters[0];
+		if (!Event.class.isAssignableFrom(eventClass)) {
+			throw new IllegalGameListenerMethodException(method, "First parameter of method " + method.getName() + " in type "
+					+ method.getDeclaringClass().getCanonicalName() + " is not a subtype of Event");
+		}
+		
 		if (!method.isAccessible()) {
 			method.setAccessible(true);
 		}
 		
 		subscribe = method.getAnnotation(Subscribe.class);
-		
-		Class<?>[] parameters = method.getParameterTypes();
-		Validate.isTrue(parameters.length == 1, "method must have only one parameter which must be a subtype of Event");
-		
-		Class<?> eventClass = parameters[0];
-		Validate.isTrue(Event.class.isAssignableFrom(eventClass), "First parameter of method must be a subtype of Event");
-		
 		this.eventClass = (Class<? extends Event>) eventClass;
+		
+		try {
+			MethodHandle handle = MethodHandles.lookup().unreflect(method);
+			if (!Modifier.isStatic(method.getModifiers())) {
+				handle = handle.bindTo(instance);
+			}
+			
+			//Drop a possible return value and widen the parameter to Event
+			this.invoker = handle.asType(handle.type().changeReturnType(void.class)).asType(INVOKER_TYPE);
+		} catch (IllegalAccessException | IllegalArgumentException | ClassCastException e) {
+			IllegalGameListenerMethodException exception = new IllegalGameListenerMethodException(method, "Could not bind method "
+					+ method.getName() + " in type " + method.getDeclaringClass().getCanonicalName() + " to its listener");
+			exception.initCause(e);
+			throw exception;
+		}
 	}
 	
 	public String getMethodName() {
@@ -61,14 +86,13 @@ public class EventListenerMethod implements Comparable<EventListenerMethod> {
 		return method.getDeclaringClass();
 	}
 	
-	public void invoke(Event event) {
-		Validate.isTrue(eventClass.isAssignableFrom(event.getClass()), "event must be either " + eventClass.getName() + " or a subtype");
-		
-		try {
-			method.invoke(instance, event);
-		} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-			throw new RuntimeException(e);
-		}
+	public Subscribe.Priority getPriority() {
+		return subscribe.priority();
+	}
+	
+	public void invoke(Event event) throws Throwable {
+		//The event type has already been matched by the dispatch table of the bus
+		invoker.invokeExact(event);
 	}
 
 	@Override
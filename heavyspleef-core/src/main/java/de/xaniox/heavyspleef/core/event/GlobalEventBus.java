@@ -26,14 +26,12 @@ import java.util.logging.Logger;
 public class GlobalEventBus extends EventBus {
 	
 	private final Logger logger;
-	private Set<EventBus> singleInstanceBusMap;
 	private Set<SpleefListener> globalListeners;
 	
 	public GlobalEventBus(Logger logger) {
 		super(logger);
 		
 		this.logger = logger;
-		this.singleInstanceBusMap = Sets.newHashSet();
 		this.globalListeners = Sets.newHashSet();
 	}
 
@@ -45,16 +43,9 @@ public class GlobalEventBus extends EventBus {
 	@Override
 	public void registerListener(SpleefListener listener, boolean registerSuper) {
 		Validate.isTrue(!globalListeners.contains(listener), "Global listener already registered");
-		for (EventBus bus : singleInstanceBusMap) {
-			if (bus.isRegistered(listener)) {
-				throw new IllegalArgumentException("This listener has already been registered on a child EventBus");
-			}
-		}
 		
+		super.registerListener(listener, registerSuper);
 		globalListeners.add(listener);
-		for (EventBus bus : singleInstanceBusMap) {
-			bus.registerListener(listener, registerSuper);
-		}
 	}
 	
 	@Override
@@ -62,23 +53,15 @@ public class GlobalEventBus extends EventBus {
 		Validate.isTrue(globalListeners.contains(listener), "Global listener has not been registered");
 		
 		globalListeners.remove(listener);
-		for (EventBus bus : singleInstanceBusMap) {
-			bus.unregister(listener);
-		}
+		super.unregister(listener);
 	}
 	
 	@Override
 	public void callEvent(Event event) {}
 	
 	public EventBus newChildBus() {
-		EventBus bus = new EventBus(logger);
-		
-		singleInstanceBusMap.add(bus);
-		for (SpleefListener listener : globalListeners) {
-			bus.registerListener(listener);
-		}
-		
-		return bus;
+		//Global listeners are not copied but merged into the child's dispatch tables on demand
+		return new EventBus(logger, this);
 	}
 
 }
\ No newline at end of file
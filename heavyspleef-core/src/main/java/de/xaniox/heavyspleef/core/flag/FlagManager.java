@@ -38,6 +38,7 @@ public class FlagManager {
 	private Set<GamePropertyBundle> propertyBundles;
 	private DefaultGamePropertyBundle requestedProperties;
 	private GamePropertyBundle defaults;
+	private volatile GamePropertySnapshot propertySnapshot;
 	private boolean migrateManager;
 	
 	public FlagManager(JavaPlugin plugin, GamePropertyBundle defaults) {
@@ -53,6 +54,7 @@ public class FlagManager {
 		this.propertyBundles = Sets.newTreeSet();
 		this.requestedProperties = new DefaultGamePropertyBundle(Maps.newEnumMap(GameProperty.class));
 		this.migrateManager = migrateManager;
+		this.propertySnapshot = GamePropertySnapshot.resolve(propertyBundles, requestedProperties, defaults);
 	}
 	
 	public void addFlag(AbstractFlag<?> flag) {
@@ -103,6 +105,7 @@ public class FlagManager {
 					if (!flagGamePropertiesMap.isEmpty()) {
 						GamePropertyBundle properties = new GamePropertyBundle(flag, flagGamePropertiesMap);
 						propertyBundles.add(properties);
+						invalidateProperties();
 					}
 				}
 				
@@ -184,6 +187,7 @@ public class FlagManager {
 			iterator.remove();
 		}
 		
+		invalidateProperties();
 		return flag;
 	}
 	
@@ -299,6 +303,7 @@ public class FlagManager {
 			iterator.remove();
 		}
 		
+		invalidateProperties();
 		disabledFlags.add(path);
 	}
 	
@@ -331,6 +336,7 @@ public class FlagManager {
 			if (!flagGamePropertiesMap.isEmpty()) {
 				GamePropertyBundle properties = new GamePropertyBundle(flag, flagGamePropertiesMap);
 				propertyBundles.add(properties);
+				invalidateProperties();
 			}
 		}
 		
@@ -376,34 +382,30 @@ public class FlagManager {
 	}
 	
 	public Object getProperty(GameProperty property) {
-		Object value = null;
-		
-		for (GamePropertyBundle bundle : propertyBundles) {
-			Object candidateValue = bundle.get(property);
-			if (candidateValue != null) {
-				value = candidateValue;
-			}
-		}
-		
-		if (value == null) {
-			// Requested properties have the lowest priority
-			value = requestedProperties.get(property);
-		}
-		
-		if (value == null) {
-			// There is no requested property, just use the config default
-			value = defaults.get(property);
-		}
-		
-		if (value == null) {
-			value = property.getDefaultValue();
-		}
-		
-		return value;
+		return propertySnapshot.get(property);
+	}
+	
+	public GamePropertySnapshot getPropertySnapshot() {
+		return propertySnapshot;
+	}
+	
+	/**
+	 * Resolves all property layers again and publishes the result. This is done
+	 * automatically when flags or requested properties change, callers only
+	 * need it after modifying the bundle of {@link #getDefaultPropertyBundle()}
+	 */
+	public void invalidateProperties() {
+		propertySnapshot = GamePropertySnapshot.resolve(propertyBundles, requestedProperties, defaults);
+	}
+	
+	public void setDefaults(GamePropertyBundle defaults) {
+		this.defaults = defaults;
+		invalidateProperties();
 	}
 	
 	public void requestProperty(GameProperty property, Object value) {
 		requestedProperties.put(property, value);
+		invalidateProperties();
 	}
 	
 	public GamePropertyBundle getDefaultPropertyBundle() {
@@ -0,0 +1,98 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core.flag;
+
+import de.xaniox.heavyspleef.core.game.GameProperty;
+
+/**
+ * An immutable view of all resolved game properties, indexed by
+ * {@link GameProperty#ordinal()}. Boolean and integer properties are
+ * additionally stored unboxed so hot paths can read them directly.
+ */
+public final class GamePropertySnapshot {
+	
+	private static final GameProperty[] PROPERTIES = GameProperty.values();
+	
+	private final Object[] values;
+	private final boolean[] booleans;
+	private final int[] ints;
+	
+	GamePropertySnapshot(Object[] values) {
+		this.values = values;
+		this.booleans = new boolean[values.length];
+		this.ints = new int[values.length];
+		
+		for (int i = 0; i < values.length; i++) {
+			Object value = values[i];
+			
+			if (value instanceof Boolean) {
+				booleans[i] = (Boolean) value;
+			} else if (value instanceof Number) {
+				ints[i] = ((Number) value).intValue();
+			}
+		}
+	}
+	
+	static GamePropertySnapshot resolve(Iterable<? extends FlagManager.GamePropertyBundle> bundles, 
+			FlagManager.GamePropertyBundle requested, FlagManager.GamePropertyBundle defaults) {
+		Object[] values = new Object[PROPERTIES.length];
+		
+		// Bundles are sorted by priority, the last one defining a property wins
+		for (FlagManager.GamePropertyBundle bundle : bundles) {
+			for (int i = 0; i < PROPERTIES.length; i++) {
+				Object candidateValue = bundle.get(PROPERTIES[i]);
+				if (candidateValue != null) {
+					values[i] = candidateValue;
+				}
+			}
+		}
+		
+		for (int i = 0; i < PROPERTIES.length; i++) {
+			GameProperty property = PROPERTIES[i];
+			
+			if (values[i] == null) {
+				// Requested properties have the lowest priority
+				values[i] = requested.get(property);
+			}
+			
+			if (values[i] == null && defaults != null) {
+				// There is no requested property, just use the config default
+				values[i] = defaults.get(property);
+			}
+			
+			if (values[i] == null) {
+				values[i] = property.getDefaultValue();
+			}
+		}
+		
+		return new GamePropertySnapshot(values);
+	}
+	
+	public Object get(GameProperty property) {
+		return values[property.ordinal()];
+	}
+	
+	public boolean getBoolean(GameProperty property) {
+		return booleans[property.ordinal()];
+	}
+	
+	public int getInt(GameProperty property) {
+		return ints[property.ordinal()];
+	}
+	
+}
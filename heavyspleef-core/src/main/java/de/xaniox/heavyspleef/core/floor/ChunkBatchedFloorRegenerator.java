@@ -0,0 +1,57 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core.floor;
+
+import com.sk89q.worldedit.EditSession;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+
+/*
+ * Restores floors without an EditSession: no history is recorded, blocks which
+ * already match are skipped and writes are applied chunk by chunk through
+ * Bukkit without triggering physics
+ */
+public class ChunkBatchedFloorRegenerator implements PlanningFloorRegenerator {
+	
+	private final FloorRegenerator pasteRegenerator;
+	
+	public ChunkBatchedFloorRegenerator(FloorRegenerator pasteRegenerator) {
+		this.pasteRegenerator = pasteRegenerator;
+	}
+	
+	@Override
+	public RegenerationPlan plan(Floor floor, RegenerationCause cause) {
+		//Plans are rebuilt from the compact floor data every time, caching them would double the memory of every floor
+		return RegenerationPlan.ofFloor(floor);
+	}
+	
+	@Override
+	public void regenerate(Floor floor, EditSession session, RegenerationCause cause) {
+		RegenerationPlan plan = plan(floor, cause);
+		World world = plan != null ? Bukkit.getWorld(plan.getWorldName()) : null;
+		
+		if (world == null) {
+			//Tile entities can only be restored by pasting
+			pasteRegenerator.regenerate(floor, session, cause);
+			return;
+		}
+		
+		plan.applyTo(world);
+	}
+	
+}
@@ -0,0 +1,308 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core.floor;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.session.ClipboardHolder;
+import com.sk89q.worldedit.world.World;
+import com.sk89q.worldedit.world.registry.WorldData;
+import org.apache.commons.lang.Validate;
+import org.bukkit.Location;
+import org.bukkit.block.Block;
+
+import java.lang.ref.SoftReference;
+import java.nio.ShortBuffer;
+import java.util.Map;
+
+/*
+ * Floor storing its blocks as one short per block (id << 4 | data) instead of
+ * holding a WorldEdit clipboard with one BaseBlock instance per block.
+ * A clipboard is only built when WorldEdit itself has to paste the floor
+ * and is softly referenced so that it may be collected afterwards
+ */
+public class CompactFloor implements Floor {
+	
+	private static final int AIR_ID = 0;
+	
+	private final String name;
+	private final Region region;
+	private final Vector origin;
+	private final int minX, minY, minZ;
+	private final int width, height, length;
+	/* Indexed by y * width * length + z * width + x, the same layout as the schematic format */
+	private final Supplier<ShortBuffer> stateSupplier;
+	private volatile ShortBuffer states;
+	private final Map<Integer, CompoundTag> tileEntities;
+	private volatile SoftReference<Clipboard> clipboardReference;
+	
+	public CompactFloor(String name, Region region, Vector origin, short[] states, Map<Integer, CompoundTag> tileEntities) {
+		this(name, region, origin, Suppliers.ofInstance(ShortBuffer.wrap(states)), tileEntities);
+		
+		Validate.isTrue(states.length == width * height * length, "Length of states must match the volume of the region");
+	}
+	
+	/**
+	 * Creates a floor whose block states are only loaded once they are
+	 * accessed for the first time, e.g. from a memory mapped file
+	 */
+	public CompactFloor(String name, Region region, Vector origin, Supplier<ShortBuffer> stateSupplier, Map<Integer, CompoundTag> tileEntities) {
+		this.name = name;
+		this.region = region;
+		this.origin = origin;
+		
+		Vector min = region.getMinimumPoint();
+		this.minX = min.getBlockX();
+		this.minY = min.getBlockY();
+		this.minZ = min.getBlockZ();
+		this.width = region.getWidth();
+		this.height = region.getHeight();
+		this.length = region.getLength();
+		this.stateSupplier = stateSupplier;
+		this.tileEntities = tileEntities.isEmpty() ? ImmutableMap.<Integer, CompoundTag>of() : ImmutableMap.copyOf(tileEntities);
+	}
+	
+	public static CompactFloor fromClipboard(String name, Clipboard clipboard) {
+		Region region = clipboard.getRegion();
+		Vector min = region.getMinimumPoint();
+		int width = region.getWidth();
+		int height = region.getHeight();
+		int length = region.getLength();
+		
+		short[] states = new short[width * height * length];
+		Map<Integer, CompoundTag> tileEntities = Maps.newHashMap();
+		
+		for (int y = 0; y < height; y++) {
+			for (int z = 0; z < length; z++) {
+				for (int x = 0; x < width; x++) {
+					int index = y * width * length + z * width + x;
+					BaseBlock block = clipboard.getBlock(min.add(x, y, z));
+					
+					states[index] = (short) RegenerationPlan.encodeState(block.getId(), block.getData());
+					
+					if (block.hasNbtData()) {
+						tileEntities.put(index, block.getNbtData());
+					}
+				}
+			}
+		}
+		
+		return new CompactFloor(name, region, clipboard.getOrigin(), states, tileEntities);
+	}
+	
+	/**
+	 * Creates a floor covering another region of the same dimensions which
+	 * shares the block states and tile entities of this floor instead of
+	 * copying them
+	 */
+	public CompactFloor share(Region region, Vector origin) {
+		Validate.isTrue(region.getWidth() == width && region.getHeight() == height && region.getLength() == length,
+				"Region must have the same dimensions as the floor");
+		
+		ShortBuffer states = this.states;
+		Supplier<ShortBuffer> supplier = states != null ? Suppliers.ofInstance(states) : new Supplier<ShortBuffer>() {
+			
+			@Override
+			public ShortBuffer get() {
+				//Load through this floor so that the states are only loaded once
+				return getStates();
+			}
+		};
+		
+		return new CompactFloor(name, region, origin, supplier, tileEntities);
+	}
+	
+	@Override
+	public String getName() {
+		return name;
+	}
+	
+	@Override
+	public Region getRegion() {
+		return region;
+	}
+	
+	public Vector getOrigin() {
+		return origin;
+	}
+	
+	public int getWidth() {
+		return width;
+	}
+	
+	public int getHeight() {
+		return height;
+	}
+	
+	public int getLength() {
+		return length;
+	}
+	
+	/**
+	 * Gets the encoded state (id << 4 | data) of a block
+	 * 
+	 * @return The state or 0 (air) if the position is out of bounds
+	 */
+	public int getState(int x, int y, int z) {
+		int index = indexOf(x, y, z);
+		return index < 0 ? AIR_ID : getStates().get(index) & 0xFFFF;
+	}
+	
+	public boolean hasTileEntity(int x, int y, int z) {
+		int index = indexOf(x, y, z);
+		return index >= 0 && tileEntities.containsKey(index);
+	}
+	
+	public boolean hasTileEntities() {
+		return !tileEntities.isEmpty();
+	}
+	
+	public BaseBlock getBlock(int x, int y, int z) {
+		int index = indexOf(x, y, z);
+		if (index < 0) {
+			return new BaseBlock(AIR_ID);
+		}
+		
+		return toBlock(index);
+	}
+	
+	private BaseBlock toBlock(int index) {
+		int state = getStates().get(index) & 0xFFFF;
+		BaseBlock block = new BaseBlock(RegenerationPlan.decodeId(state), RegenerationPlan.decodeData(state));
+		
+		CompoundTag tileEntity = tileEntities.get(index);
+		if (tileEntity != null) {
+			block.setNbtData(tileEntity);
+		}
+		
+		return block;
+	}
+	
+	private ShortBuffer getStates() {
+		ShortBuffer states = this.states;
+		if (states == null) {
+			synchronized (this) {
+				states = this.states;
+				if (states == null) {
+					states = stateSupplier.get();
+					this.states = states;
+				}
+			}
+		}
+		
+		return states;
+	}
+	
+	private int indexOf(int x, int y, int z) {
+		int dx = x - minX;
+		int dy = y - minY;
+		int dz = z - minZ;
+		
+		if (dx < 0 || dy < 0 || dz < 0 || dx >= width || dy >= height || dz >= length) {
+			return -1;
+		}
+		
+		return dy * width * length + dz * width + dx;
+	}
+	
+	@Override
+	public Clipboard getClipboard() {
+		SoftReference<Clipboard> reference = clipboardReference;
+		Clipboard clipboard = reference != null ? reference.get() : null;
+		
+		if (clipboard == null) {
+			clipboard = createClipboard();
+			clipboardReference = new SoftReference<Clipboard>(clipboard);
+		}
+		
+		return clipboard;
+	}
+	
+	private Clipboard createClipboard() {
+		BlockArrayClipboard clipboard = new BlockArrayClipboard(region);
+		clipboard.setOrigin(origin);
+		ShortBuffer states = getStates();
+		
+		try {
+			for (int y = 0; y < height; y++) {
+				for (int z = 0; z < length; z++) {
+					for (int x = 0; x < width; x++) {
+						int index = y * width * length + z * width + x;
+						if (states.get(index) == AIR_ID) {
+							//Unset clipboard blocks are air already
+							continue;
+						}
+						
+						clipboard.setBlock(new Vector(minX + x, minY + y, minZ + z), toBlock(index));
+					}
+				}
+			}
+		} catch (WorldEditException e) {
+			throw new RuntimeException(e);
+		}
+		
+		return clipboard;
+	}
+	
+	@Override
+	public boolean contains(Block block) {
+		return contains(block.getX(), block.getY(), block.getZ());
+	}
+	
+	@Override
+	public boolean contains(Location location) {
+		return contains(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+	}
+	
+	private boolean contains(int x, int y, int z) {
+		return indexOf(x, y, z) >= 0 && region.contains(new Vector(x, y, z));
+	}
+	
+	@Override
+	@Deprecated
+	public void generate(EditSession session) {
+		World world = region.getWorld();
+		WorldData data = world.getWorldData();
+		
+		ClipboardHolder holder = new ClipboardHolder(getClipboard(), data);
+		
+		Operation pasteOperation = holder.createPaste(session, data)
+				.to(region.getMinimumPoint())
+				.ignoreAirBlocks(true)
+				.build();
+		
+		try {
+			Operations.complete(pasteOperation);
+		} catch (WorldEditException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+}
@@ -0,0 +1,206 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core.floor;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.regions.Region;
+import de.xaniox.heavyspleef.core.BlockPositions;
+import de.xaniox.heavyspleef.core.collection.LongIntHashMap;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.Random;
+
+/*
+ * Restores only the blocks recorded as changed. A bounded random sample of the floor
+ * is validated as well, the whole floor is regenerated once the sample reveals an
+ * unrecorded change, a tile entity differs or too many blocks have changed
+ */
+public class DifferentialFloorRegenerator implements PlanningFloorRegenerator {
+	
+	private static final int AIR_ID = 0;
+	private static final int NO_DIFFERENCE = -1;
+	private static final int REQUIRES_FULL_PASTE = -2;
+	
+	private final FloorRegenerator fullRegenerator;
+	private final double maxDifferenceFraction;
+	private final int sampleSize;
+	private final Random random;
+	
+	public DifferentialFloorRegenerator(FloorRegenerator fullRegenerator, double maxDifferenceFraction, int sampleSize) {
+		this.fullRegenerator = fullRegenerator;
+		this.maxDifferenceFraction = maxDifferenceFraction;
+		this.sampleSize = sampleSize;
+		this.random = new Random();
+	}
+	
+	/* Without any recorded changes the floor is regenerated completely */
+	@Override
+	public void regenerate(Floor floor, EditSession session, RegenerationCause cause) {
+		fullRegenerator.regenerate(floor, session, cause);
+	}
+	
+	public void regenerate(Floor floor, EditSession session, RegenerationCause cause, long[] changedPositions) {
+		Region region = floor.getRegion();
+		World world = getBukkitWorld(region);
+		LongIntHashMap differences = world != null 
+				? collectDifferences(floor, BlockStateViews.live(world), changedPositions) : null;
+		
+		if (differences == null) {
+			fullRegenerator.regenerate(floor, session, cause);
+			return;
+		}
+		
+		differences.forEach(new RestoringVisitor(world));
+	}
+	
+	@Override
+	public RegenerationPlan plan(Floor floor, RegenerationCause cause) {
+		return fullRegenerator instanceof PlanningFloorRegenerator 
+				? ((PlanningFloorRegenerator) fullRegenerator).plan(floor, cause) : null;
+	}
+	
+	/**
+	 * Plans the restoration of the recorded changes. This reads the changed
+	 * and sampled blocks from the view and must therefore be called on the
+	 * main thread when reading from the live world
+	 * 
+	 * @return The plan or null if the floor must be regenerated completely
+	 */
+	public RegenerationPlan plan(Floor floor, RegenerationCause cause, long[] changedPositions, BlockStateView view) {
+		Region region = floor.getRegion();
+		LongIntHashMap differences = region.getWorld() != null 
+				? collectDifferences(floor, view, changedPositions) : null;
+		
+		if (differences == null) {
+			return null;
+		}
+		
+		final RegenerationPlan.Builder builder = new RegenerationPlan.Builder(region.getWorld().getName());
+		differences.forEach(new LongIntHashMap.EntryVisitor() {
+			
+			@Override
+			public void visit(long position, int state) {
+				builder.add(position, state);
+			}
+		});
+		
+		return builder.build();
+	}
+	
+	private World getBukkitWorld(Region region) {
+		return region.getWorld() != null ? Bukkit.getWorld(region.getWorld().getName()) : null;
+	}
+	
+	/* Returns null if the floor must be restored by the full regenerator */
+	private LongIntHashMap collectDifferences(Floor floor, BlockStateView view, long[] changedPositions) {
+		FloorStates floorStates = new FloorStates(floor);
+		Region region = floor.getRegion();
+		
+		int maxDifferences = (int) (region.getArea() * maxDifferenceFraction);
+		LongIntHashMap differences = new LongIntHashMap(Math.min(changedPositions.length, maxDifferences), NO_DIFFERENCE);
+		
+		//Blocks recorded as broken are the most likely to differ
+		for (long position : changedPositions) {
+			int x = BlockPositions.unpackX(position);
+			int y = BlockPositions.unpackY(position);
+			int z = BlockPositions.unpackZ(position);
+			
+			if (!region.contains(new Vector(x, y, z))) {
+				continue;
+			}
+			
+			int state = getDifference(floorStates, view, x, y, z);
+			if (state == NO_DIFFERENCE) {
+				continue;
+			} else if (state == REQUIRES_FULL_PASTE || differences.size() >= maxDifferences) {
+				return null;
+			}
+			
+			differences.put(position, state);
+		}
+		
+		//Any sampled difference which has not been recorded was made by someone else
+		Vector min = region.getMinimumPoint();
+		Vector max = region.getMaximumPoint();
+		int width = max.getBlockX() - min.getBlockX() + 1;
+		int height = max.getBlockY() - min.getBlockY() + 1;
+		int length = max.getBlockZ() - min.getBlockZ() + 1;
+		
+		for (int i = 0; i < sampleSize; i++) {
+			int x = min.getBlockX() + random.nextInt(width);
+			int y = min.getBlockY() + random.nextInt(height);
+			int z = min.getBlockZ() + random.nextInt(length);
+			
+			if (differences.containsKey(BlockPositions.pack(x, y, z)) || !region.contains(new Vector(x, y, z))) {
+				continue;
+			}
+			
+			if (getDifference(floorStates, view, x, y, z) != NO_DIFFERENCE) {
+				return null;
+			}
+		}
+		
+		return differences;
+	}
+	
+	/* Returns the state to restore, NO_DIFFERENCE or REQUIRES_FULL_PASTE */
+	private int getDifference(FloorStates floorStates, BlockStateView view, int x, int y, int z) {
+		int flaggedState = floorStates.getState(x, y, z);
+		int state = flaggedState & FloorStates.STATE_MASK;
+		
+		if (RegenerationPlan.decodeId(state) == AIR_ID) {
+			//Air blocks are never pasted
+			return NO_DIFFERENCE;
+		}
+		
+		int currentState = view.getState(x, y, z);
+		if (currentState == state) {
+			return NO_DIFFERENCE;
+		}
+		
+		if (currentState == BlockStateView.UNKNOWN || (flaggedState & FloorStates.TILE_ENTITY_FLAG) != 0) {
+			//Tile entities can only be restored by pasting
+			return REQUIRES_FULL_PASTE;
+		}
+		
+		return state;
+	}
+	
+	private static class RestoringVisitor implements LongIntHashMap.EntryVisitor {
+		
+		private final World world;
+		
+		public RestoringVisitor(World world) {
+			this.world = world;
+		}
+
+		@Override
+		@SuppressWarnings("deprecation")
+		public void visit(long position, int state) {
+			Block block = world.getBlockAt(BlockPositions.unpackX(position), BlockPositions.unpackY(position), 
+					BlockPositions.unpackZ(position));
+			
+			block.setTypeIdAndData(state >> 4, (byte) (state & 0xF), false);
+		}
+		
+	}
+
+}
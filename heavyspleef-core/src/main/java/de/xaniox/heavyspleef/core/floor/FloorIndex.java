@@ -0,0 +1,125 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core.floor;
+
+import com.google.common.collect.Lists;
+import com.sk89q.worldedit.BlockVector;
+import com.sk89q.worldedit.regions.Region;
+import de.xaniox.heavyspleef.core.BlockPositions;
+import de.xaniox.heavyspleef.core.collection.LongIntHashMap;
+import org.apache.commons.lang.Validate;
+import org.bukkit.block.Block;
+
+import java.util.Collection;
+import java.util.List;
+
+public class FloorIndex {
+	
+	public static final FloorIndex EMPTY = new FloorIndex(new Floor[0], new LongIntHashMap(0, -1), new byte[0][]);
+	
+	private static final int MAX_FLOORS = 255;
+	private static final int SECTION_SHIFT = 4;
+	private static final int SECTION_MASK = (1 << SECTION_SHIFT) - 1;
+	private static final int SECTION_VOLUME = 1 << (3 * SECTION_SHIFT);
+	
+	private final Floor[] floors;
+	private final LongIntHashMap sectionIndices;
+	/* Per 16x16x16 section the slot of the floor (plus one) owning each block, 0 if none */
+	private final byte[][] sections;
+	
+	private FloorIndex(Floor[] floors, LongIntHashMap sectionIndices, byte[][] sections) {
+		this.floors = floors;
+		this.sectionIndices = sectionIndices;
+		this.sections = sections;
+	}
+	
+	public static FloorIndex build(Collection<Floor> floorCollection) {
+		Floor[] floors = floorCollection.toArray(new Floor[floorCollection.size()]);
+		Validate.isTrue(floors.length <= MAX_FLOORS, "Cannot index more than " + MAX_FLOORS + " floors");
+		
+		if (floors.length == 0) {
+			return EMPTY;
+		}
+		
+		LongIntHashMap sectionIndices = new LongIntHashMap(-1);
+		List<byte[]> sections = Lists.newArrayList();
+		
+		for (int slot = 0; slot < floors.length; slot++) {
+			Region region = floors[slot].getRegion();
+			
+			for (BlockVector vector : region) {
+				int x = vector.getBlockX();
+				int y = vector.getBlockY();
+				int z = vector.getBlockZ();
+				
+				long sectionKey = sectionKey(x, y, z);
+				int sectionIndex = sectionIndices.get(sectionKey);
+				if (sectionIndex < 0) {
+					sectionIndex = sections.size();
+					sections.add(new byte[SECTION_VOLUME]);
+					sectionIndices.put(sectionKey, sectionIndex);
+				}
+				
+				byte[] section = sections.get(sectionIndex);
+				int local = localIndex(x, y, z);
+				
+				//The first floor containing a block owns it
+				if (section[local] == 0) {
+					section[local] = (byte) (slot + 1);
+				}
+			}
+		}
+		
+		return new FloorIndex(floors, sectionIndices, sections.toArray(new byte[sections.size()][]));
+	}
+	
+	private static long sectionKey(int x, int y, int z) {
+		return BlockPositions.pack(x >> SECTION_SHIFT, y >> SECTION_SHIFT, z >> SECTION_SHIFT);
+	}
+	
+	private static int localIndex(int x, int y, int z) {
+		return (y & SECTION_MASK) << (2 * SECTION_SHIFT) | (z & SECTION_MASK) << SECTION_SHIFT | (x & SECTION_MASK);
+	}
+	
+	public Floor getFloorAt(int x, int y, int z) {
+		if (floors.length == 0) {
+			return null;
+		}
+		
+		int sectionIndex = sectionIndices.get(sectionKey(x, y, z));
+		if (sectionIndex < 0) {
+			return null;
+		}
+		
+		int slot = sections[sectionIndex][localIndex(x, y, z)] & 0xFF;
+		return slot == 0 ? null : floors[slot - 1];
+	}
+	
+	public Floor getFloorAt(Block block) {
+		return getFloorAt(block.getX(), block.getY(), block.getZ());
+	}
+	
+	public boolean contains(int x, int y, int z) {
+		return getFloorAt(x, y, z) != null;
+	}
+	
+	public boolean contains(Block block) {
+		return getFloorAt(block) != null;
+	}
+	
+}
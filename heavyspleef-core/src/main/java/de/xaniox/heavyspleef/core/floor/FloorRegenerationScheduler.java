@@ -0,0 +1,247 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core.floor;
+
+import com.google.common.collect.Queues;
+import com.google.common.util.concurrent.*;
+import de.xaniox.heavyspleef.core.BlockPositions;
+import de.xaniox.heavyspleef.core.HeavySpleef;
+import de.xaniox.heavyspleef.core.SimpleBasicTask;
+import de.xaniox.heavyspleef.core.config.ConfigType;
+import de.xaniox.heavyspleef.core.config.DefaultConfig;
+import de.xaniox.heavyspleef.core.config.RegenerationSection;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+public class FloorRegenerationScheduler extends SimpleBasicTask {
+	
+	/* Only query the clock every few blocks as System.nanoTime() is not free either */
+	private static final int CLOCK_CHECK_INTERVAL = 64;
+	private static final int PLANNER_THREADS = 2;
+	private static final long PLANNER_SHUTDOWN_TIMEOUT = 5000;
+	
+	private final HeavySpleef heavySpleef;
+	/* Filled by planner threads, drained on the main thread */
+	private final Queue<RegenerationJob> jobs;
+	private final ListeningExecutorService planExecutor;
+	
+	public FloorRegenerationScheduler(HeavySpleef heavySpleef) {
+		super(heavySpleef.getPlugin(), TaskType.SYNC_REPEATING_TASK, 0L, 1L);
+		
+		this.heavySpleef = heavySpleef;
+		this.jobs = Queues.newConcurrentLinkedQueue();
+		
+		ThreadFactory threadFactory = new ThreadFactory() {
+			
+			private int threadCount;
+			
+			@Override
+			public synchronized Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable);
+				thread.setName("Regeneration-Planner-" + threadCount++);
+				thread.setDaemon(true);
+				
+				return thread;
+			}
+		};
+		
+		this.planExecutor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(PLANNER_THREADS, threadFactory));
+	}
+	
+	public boolean isEnabled() {
+		DefaultConfig config = heavySpleef.getConfiguration(ConfigType.DEFAULT_CONFIG);
+		return config.getRegenerationSection().isTimeSliced();
+	}
+	
+	/**
+	 * Queues a plan to be applied over the next ticks. Plans are
+	 * applied in the order they have been scheduled
+	 * 
+	 * @param plan The plan to apply
+	 * @return A future which completes on the main thread once the plan has been applied
+	 */
+	public ListenableFuture<Void> schedule(RegenerationPlan plan) {
+		SettableFuture<Void> future = SettableFuture.create();
+		if (plan.size() == 0) {
+			future.set(null);
+			return future;
+		}
+		
+		jobs.offer(new RegenerationJob(plan, future));
+		return future;
+	}
+	
+	/**
+	 * Computes a plan on a worker thread and queues it to be applied
+	 * on the main thread afterwards
+	 * 
+	 * @param planner Computes the plan, must not access the world
+	 * @param fallback Run on the main thread if the planner returns null or fails
+	 * @return A future which completes on the main thread once the plan has been applied
+	 */
+	public ListenableFuture<Void> submit(Callable<RegenerationPlan> planner, final Runnable fallback) {
+		final SettableFuture<Void> future = SettableFuture.create();
+		ListenableFuture<RegenerationPlan> planFuture = planExecutor.submit(planner);
+		
+		Futures.addCallback(planFuture, new FutureCallback<RegenerationPlan>() {
+			
+			@Override
+			public void onSuccess(RegenerationPlan plan) {
+				jobs.offer(plan != null ? new RegenerationJob(plan, future) : new RegenerationJob(fallback, future));
+			}
+			
+			@Override
+			public void onFailure(Throwable t) {
+				heavySpleef.getLogger().log(Level.WARNING, "Could not plan floor regeneration, regenerating synchronously", t);
+				jobs.offer(new RegenerationJob(fallback, future));
+			}
+		});
+		
+		return future;
+	}
+	
+	public int getPendingJobs() {
+		return jobs.size();
+	}
+	
+	/* Waits for running planners and applies all pending plans at once, used when the plugin is disabled */
+	public void flush() {
+		planExecutor.shutdown();
+		
+		try {
+			planExecutor.awaitTermination(PLANNER_SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		RegenerationJob job;
+		while ((job = jobs.peek()) != null) {
+			while (job.applyNext()) {}
+			
+			jobs.poll();
+			job.complete();
+		}
+	}
+
+	@Override
+	public void run() {
+		if (jobs.isEmpty()) {
+			return;
+		}
+		
+		DefaultConfig config = heavySpleef.getConfiguration(ConfigType.DEFAULT_CONFIG);
+		RegenerationSection section = config.getRegenerationSection();
+		
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(section.getTickBudgetMillis());
+		int maxBlocks = section.getBlocksPerTick() > 0 ? section.getBlocksPerTick() : Integer.MAX_VALUE;
+		int applied = 0;
+		
+		RegenerationJob job;
+		while ((job = jobs.peek()) != null) {
+			boolean hasNext = true;
+			
+			while (applied < maxBlocks && (hasNext = job.applyNext())) {
+				applied++;
+				
+				if (applied % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() >= deadline) {
+					return;
+				}
+			}
+			
+			if (hasNext) {
+				//Block budget exceeded, continue in the next tick
+				return;
+			}
+			
+			jobs.poll();
+			job.complete();
+		}
+	}
+	
+	private static class RegenerationJob {
+		
+		private final RegenerationPlan plan;
+		private Runnable fallback;
+		private final SettableFuture<Void> future;
+		private World world;
+		private int index;
+		
+		public RegenerationJob(RegenerationPlan plan, SettableFuture<Void> future) {
+			this.plan = plan;
+			this.future = future;
+		}
+		
+		public RegenerationJob(Runnable fallback, SettableFuture<Void> future) {
+			this.plan = null;
+			this.fallback = fallback;
+			this.future = future;
+		}
+		
+		@SuppressWarnings("deprecation")
+		public boolean applyNext() {
+			if (fallback != null) {
+				Runnable fallback = this.fallback;
+				this.fallback = null;
+				fallback.run();
+				return true;
+			}
+			
+			if (plan == null || index >= plan.size()) {
+				return false;
+			}
+			
+			if (world == null) {
+				//Resolve the world lazily as it might have been unloaded in the meantime
+				world = Bukkit.getWorld(plan.getWorldName());
+				if (world == null) {
+					index = plan.size();
+					return false;
+				}
+			}
+			
+			long position = plan.getPosition(index);
+			int state = plan.getState(index++);
+			int id = RegenerationPlan.decodeId(state);
+			byte data = (byte) RegenerationPlan.decodeData(state);
+			
+			Block block = world.getBlockAt(BlockPositions.unpackX(position), BlockPositions.unpackY(position), 
+					BlockPositions.unpackZ(position));
+			
+			//Skip blocks which already have been restored by someone else
+			if (block.getTypeId() != id || block.getData() != data) {
+				block.setTypeIdAndData(id, data, false);
+			}
+			
+			return true;
+		}
+		
+		public void complete() {
+			future.set(null);
+		}
+		
+	}
+
+}
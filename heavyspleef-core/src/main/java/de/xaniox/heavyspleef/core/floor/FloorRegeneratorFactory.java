@@ -17,6 +17,7 @@
  */
 package de.xaniox.heavyspleef.core.floor;
 
+import de.xaniox.heavyspleef.core.config.RegenerationSection;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.PluginManager;
@@ -25,10 +26,46 @@ public class FloorRegeneratorFactory {
 
     private static final String FAWE_PLUGIN_NAME = "FastAsyncWorldEdit";
 
-    private final FloorRegenerator defaultRegenerator = new DefaultFloorRegenerator();
-    private final FloorRegenerator faweRegenerator = new FAWEFloorRegenerator();
+    private final FloorRegenerator defaultRegenerator;
+    private final FloorRegenerator faweRegenerator;
+    private final FloorRegenerator chunkBatchedRegenerator;
+    private final RegenerationSection.RegeneratorType regeneratorType;
+
+    public FloorRegeneratorFactory() {
+        this(null);
+    }
+
+    public FloorRegeneratorFactory(RegenerationSection section) {
+        DefaultFloorRegenerator pasteRegenerator = new DefaultFloorRegenerator();
+        FloorRegenerator defaultRegenerator = pasteRegenerator;
+        FloorRegenerator faweRegenerator = new FAWEFloorRegenerator();
+        FloorRegenerator chunkBatchedRegenerator = new ChunkBatchedFloorRegenerator(pasteRegenerator);
+
+        if (section != null && section.isDifferential()) {
+            double maxDifferenceFraction = section.getMaxDifferenceFraction();
+            int sampleSize = section.getSampleSize();
+
+            defaultRegenerator = new DifferentialFloorRegenerator(defaultRegenerator, maxDifferenceFraction, sampleSize);
+            faweRegenerator = new DifferentialFloorRegenerator(faweRegenerator, maxDifferenceFraction, sampleSize);
+            chunkBatchedRegenerator = new DifferentialFloorRegenerator(chunkBatchedRegenerator, maxDifferenceFraction, sampleSize);
+        }
+
+        this.defaultRegenerator = defaultRegenerator;
+        this.faweRegenerator = faweRegenerator;
+        this.chunkBatchedRegenerator = chunkBatchedRegenerator;
+        this.regeneratorType = section != null ? section.getRegeneratorType() : RegenerationSection.RegeneratorType.AUTO;
+    }
 
     public FloorRegenerator retrieveRegeneratorInstance() {
+        switch (regeneratorType) {
+            case CHUNK_BATCHED:
+                return chunkBatchedRegenerator;
+            case WORLDEDIT:
+                return defaultRegenerator;
+            default:
+                break;
+        }
+
         //If FastAsyncWorldEdit is installed, use a special fawe designed
         //generator for compatibility
         PluginManager pluginManager = Bukkit.getPluginManager();
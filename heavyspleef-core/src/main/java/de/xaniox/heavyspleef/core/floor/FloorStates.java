@@ -0,0 +1,55 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core.floor;
+
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+
+/* Reads encoded block states from compact floors without building a clipboard */
+class FloorStates {
+	
+	/* Set on states of blocks which can only be restored by pasting */
+	static final int TILE_ENTITY_FLAG = 1 << 16;
+	static final int STATE_MASK = 0xFFFF;
+	
+	private final CompactFloor compactFloor;
+	private final Clipboard clipboard;
+	
+	FloorStates(Floor floor) {
+		if (floor instanceof CompactFloor) {
+			this.compactFloor = (CompactFloor) floor;
+			this.clipboard = null;
+		} else {
+			this.compactFloor = null;
+			this.clipboard = floor.getClipboard();
+		}
+	}
+	
+	int getState(int x, int y, int z) {
+		if (compactFloor != null) {
+			int state = compactFloor.getState(x, y, z);
+			return compactFloor.hasTileEntity(x, y, z) ? state | TILE_ENTITY_FLAG : state;
+		}
+		
+		BaseBlock block = clipboard.getBlock(new Vector(x, y, z));
+		int state = RegenerationPlan.encodeState(block.getId(), block.getData());
+		return block.hasNbtData() ? state | TILE_ENTITY_FLAG : state;
+	}
+	
+}
@@ -0,0 +1,35 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core.floor;
+
+public interface PlanningFloorRegenerator extends FloorRegenerator {
+	
+	/**
+	 * Computes the block writes needed to regenerate a floor without
+	 * applying them. Plans are computed on worker threads from the stored
+	 * floor data, so implementations must never access the world directly.
+	 * Blocks which already match are skipped when the plan is applied
+	 * 
+	 * @param floor The floor to regenerate
+	 * @param cause The cause of this regeneration
+	 * @return The plan or null if this floor can only be regenerated
+	 * by {@link #regenerate(Floor, com.sk89q.worldedit.EditSession, RegenerationCause)}
+	 */
+	public RegenerationPlan plan(Floor floor, RegenerationCause cause);
+	
+}
@@ -0,0 +1,237 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core.floor;
+
+import com.google.common.collect.Lists;
+import com.sk89q.worldedit.BlockVector;
+import com.sk89q.worldedit.regions.Region;
+import de.xaniox.heavyspleef.core.BlockPositions;
+import de.xaniox.heavyspleef.core.collection.LongIntHashMap;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.Arrays;
+import java.util.List;
+
+/* Immutable list of block writes, grouped by chunk. States are encoded as id << 4 | data */
+public class RegenerationPlan {
+	
+	private static final int AIR_ID = 0;
+	
+	private final String worldName;
+	private final long[] positions;
+	private final int[] states;
+	
+	private RegenerationPlan(String worldName, long[] positions, int[] states) {
+		this.worldName = worldName;
+		this.positions = positions;
+		this.states = states;
+	}
+	
+	/**
+	 * Creates a plan restoring every non-air block of the floor
+	 * 
+	 * @param floor The floor to restore
+	 * @return The plan or null if the floor has no world or contains
+	 * tile entities which can only be restored by pasting
+	 */
+	public static RegenerationPlan ofFloor(Floor floor) {
+		return ofFloor(floor, true);
+	}
+	
+	/**
+	 * Creates a plan restoring the type and data of every non-air block
+	 * of the floor, leaving the contents of tile entities untouched
+	 * 
+	 * @param floor The floor to restore
+	 * @return The plan or null if the floor has no world
+	 */
+	public static RegenerationPlan ofFloorBlocks(Floor floor) {
+		return ofFloor(floor, false);
+	}
+	
+	private static RegenerationPlan ofFloor(Floor floor, boolean failOnTileEntities) {
+		Region region = floor.getRegion();
+		if (region.getWorld() == null) {
+			return null;
+		}
+		
+		FloorStates floorStates = new FloorStates(floor);
+		Builder builder = new Builder(region.getWorld().getName());
+		
+		for (BlockVector vector : region) {
+			int x = vector.getBlockX();
+			int y = vector.getBlockY();
+			int z = vector.getBlockZ();
+			
+			int state = floorStates.getState(x, y, z);
+			if ((state & FloorStates.TILE_ENTITY_FLAG) != 0) {
+				if (failOnTileEntities) {
+					return null;
+				}
+				
+				state &= FloorStates.STATE_MASK;
+			}
+			
+			if (decodeId(state) == AIR_ID) {
+				continue;
+			}
+			
+			builder.add(x, y, z, state);
+		}
+		
+		return builder.build();
+	}
+	
+	/* Applies all writes at once, skipping blocks which already match. Must be called on the main thread */
+	@SuppressWarnings("deprecation")
+	public void applyTo(World world) {
+		Chunk chunk = null;
+		
+		//Plans are grouped by chunk so every chunk is only looked up once
+		for (int i = 0; i < positions.length; i++) {
+			long position = positions[i];
+			int x = BlockPositions.unpackX(position);
+			int y = BlockPositions.unpackY(position);
+			int z = BlockPositions.unpackZ(position);
+			
+			if (chunk == null || chunk.getX() != x >> 4 || chunk.getZ() != z >> 4) {
+				chunk = world.getChunkAt(x >> 4, z >> 4);
+			}
+			
+			int id = decodeId(states[i]);
+			byte data = (byte) decodeData(states[i]);
+			
+			Block block = chunk.getBlock(x & 0xF, y, z & 0xF);
+			if (block.getTypeId() == id && block.getData() == data) {
+				continue;
+			}
+			
+			block.setTypeIdAndData(id, data, false);
+		}
+	}
+	
+	public static int encodeState(int id, int data) {
+		return id << 4 | data & 0xF;
+	}
+	
+	public static int decodeId(int state) {
+		return state >>> 4;
+	}
+	
+	public static int decodeData(int state) {
+		return state & 0xF;
+	}
+	
+	public String getWorldName() {
+		return worldName;
+	}
+	
+	public int size() {
+		return positions.length;
+	}
+	
+	public long getPosition(int index) {
+		return positions[index];
+	}
+	
+	public int getState(int index) {
+		return states[index];
+	}
+	
+	public static class Builder {
+		
+		private static final int INITIAL_CHUNK_CAPACITY = 64;
+		
+		private final String worldName;
+		private final LongIntHashMap chunkIndices;
+		private final List<long[]> chunkPositions;
+		private final List<int[]> chunkStates;
+		private int[] chunkSizes;
+		private int size;
+		
+		public Builder(String worldName) {
+			this.worldName = worldName;
+			this.chunkIndices = new LongIntHashMap(-1);
+			this.chunkPositions = Lists.newArrayList();
+			this.chunkStates = Lists.newArrayList();
+			this.chunkSizes = new int[16];
+		}
+		
+		public Builder add(long position, int state) {
+			return add(BlockPositions.unpackX(position), BlockPositions.unpackY(position), BlockPositions.unpackZ(position), state);
+		}
+		
+		public Builder add(int x, int y, int z, int state) {
+			long chunkKey = BlockPositions.pack(x >> 4, 0, z >> 4);
+			int chunkIndex = chunkIndices.get(chunkKey);
+			
+			if (chunkIndex < 0) {
+				chunkIndex = chunkPositions.size();
+				chunkIndices.put(chunkKey, chunkIndex);
+				chunkPositions.add(new long[INITIAL_CHUNK_CAPACITY]);
+				chunkStates.add(new int[INITIAL_CHUNK_CAPACITY]);
+				
+				if (chunkIndex >= chunkSizes.length) {
+					chunkSizes = Arrays.copyOf(chunkSizes, chunkSizes.length << 1);
+				}
+			}
+			
+			long[] positions = chunkPositions.get(chunkIndex);
+			int[] states = chunkStates.get(chunkIndex);
+			int chunkSize = chunkSizes[chunkIndex];
+			
+			if (chunkSize == positions.length) {
+				positions = Arrays.copyOf(positions, chunkSize << 1);
+				states = Arrays.copyOf(states, chunkSize << 1);
+				chunkPositions.set(chunkIndex, positions);
+				chunkStates.set(chunkIndex, states);
+			}
+			
+			positions[chunkSize] = BlockPositions.pack(x, y, z);
+			states[chunkSize] = state;
+			chunkSizes[chunkIndex]++;
+			size++;
+			return this;
+		}
+		
+		public int size() {
+			return size;
+		}
+		
+		public RegenerationPlan build() {
+			long[] positions = new long[size];
+			int[] states = new int[size];
+			int offset = 0;
+			
+			//Concatenate chunk by chunk so that writes to the same chunk are applied together
+			for (int i = 0; i < chunkPositions.size(); i++) {
+				int chunkSize = chunkSizes[i];
+				
+				System.arraycopy(chunkPositions.get(i), 0, positions, offset, chunkSize);
+				System.arraycopy(chunkStates.get(i), 0, states, offset, chunkSize);
+				offset += chunkSize;
+			}
+			
+			return new RegenerationPlan(worldName, positions, states);
+		}
+		
+	}
+
+}
@@ -0,0 +1,193 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core.floor;
+
+import com.sk89q.worldedit.BlockVector;
+import com.sk89q.worldedit.regions.Region;
+import de.xaniox.heavyspleef.core.BlockPositions;
+import de.xaniox.heavyspleef.core.collection.LongIntHashMap;
+import org.apache.commons.lang.Validate;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/*
+ * Standing positions on top of a floor which keep a minimum horizontal spacing
+ * to each other. Positions are sampled once per floor instance as floors are
+ * replaced rather than modified when they are redefined
+ */
+public class SpawnpointPool {
+	
+	public static final int DEFAULT_SPACING = 2;
+	
+	private static final int NO_ENTRY = -1;
+	
+	private final Floor floor;
+	private final long[] positions;
+	private final Random random;
+	/* Positions before the cursor have already been handed out in the current round */
+	private int cursor;
+	
+	private SpawnpointPool(Floor floor, long[] positions, Random random) {
+		this.floor = floor;
+		this.positions = positions;
+		this.random = random;
+	}
+	
+	public static SpawnpointPool build(Floor floor, int spacing) {
+		Validate.isTrue(spacing > 0, "spacing must be positive");
+		
+		Random random = new Random();
+		long[] candidates = collectStandingPositions(floor);
+		
+		//Visiting candidates in random order and keeping those which are not too close to an accepted one
+		//yields a maximal Poisson-disk sample of the floor surface
+		for (int i = candidates.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			long tmp = candidates[i];
+			candidates[i] = candidates[j];
+			candidates[j] = tmp;
+		}
+		
+		LongIntHashMap cellHeads = new LongIntHashMap(NO_ENTRY);
+		int[] nextInCell = new int[candidates.length];
+		long[] accepted = new long[candidates.length];
+		int acceptedCount = 0;
+		int spacingSq = spacing * spacing;
+		
+		for (long candidate : candidates) {
+			int x = BlockPositions.unpackX(candidate);
+			int z = BlockPositions.unpackZ(candidate);
+			int cellX = floorDiv(x, spacing);
+			int cellZ = floorDiv(z, spacing);
+			
+			if (hasNeighbour(cellHeads, nextInCell, accepted, x, z, cellX, cellZ, spacingSq)) {
+				continue;
+			}
+			
+			long cellKey = BlockPositions.pack(cellX, 0, cellZ);
+			nextInCell[acceptedCount] = cellHeads.put(cellKey, acceptedCount);
+			accepted[acceptedCount++] = candidate;
+		}
+		
+		return new SpawnpointPool(floor, Arrays.copyOf(accepted, acceptedCount), random);
+	}
+	
+	private static int floorDiv(int value, int divisor) {
+		int quotient = value / divisor;
+		return value % divisor < 0 ? quotient - 1 : quotient;
+	}
+	
+	private static boolean hasNeighbour(LongIntHashMap cellHeads, int[] nextInCell, long[] accepted, int x, int z,
+			int cellX, int cellZ, int spacingSq) {
+		//With cells as wide as the spacing only the adjacent cells can hold conflicting positions
+		for (int offsetX = -1; offsetX <= 1; offsetX++) {
+			for (int offsetZ = -1; offsetZ <= 1; offsetZ++) {
+				int index = cellHeads.get(BlockPositions.pack(cellX + offsetX, 0, cellZ + offsetZ));
+				
+				while (index != NO_ENTRY) {
+					int dx = BlockPositions.unpackX(accepted[index]) - x;
+					int dz = BlockPositions.unpackZ(accepted[index]) - z;
+					
+					if (dx * dx + dz * dz < spacingSq) {
+						return true;
+					}
+					
+					index = nextInCell[index];
+				}
+			}
+		}
+		
+		return false;
+	}
+	
+	/* Collects the block above the topmost solid block of every column of the floor */
+	private static long[] collectStandingPositions(Floor floor) {
+		Region region = floor.getRegion();
+		FloorStates floorStates = new FloorStates(floor);
+		LongIntHashMap topBlocks = new LongIntHashMap(NO_ENTRY);
+		
+		for (BlockVector vector : region) {
+			int x = vector.getBlockX();
+			int y = vector.getBlockY();
+			int z = vector.getBlockZ();
+			
+			int state = floorStates.getState(x, y, z) & FloorStates.STATE_MASK;
+			if (RegenerationPlan.decodeId(state) == 0) {
+				continue;
+			}
+			
+			long column = BlockPositions.pack(x, 0, z);
+			int top = topBlocks.get(column);
+			
+			if (top == NO_ENTRY || y > top) {
+				topBlocks.put(column, y);
+			}
+		}
+		
+		final long[] positions = new long[topBlocks.size()];
+		topBlocks.forEach(new LongIntHashMap.EntryVisitor() {
+			
+			private int index;
+			
+			@Override
+			public void visit(long key, int value) {
+				positions[index++] = BlockPositions.pack(BlockPositions.unpackX(key), value + 1, BlockPositions.unpackZ(key));
+			}
+		});
+		
+		return positions;
+	}
+	
+	public Floor getFloor() {
+		return floor;
+	}
+	
+	public int size() {
+		return positions.length;
+	}
+	
+	public boolean isEmpty() {
+		return positions.length == 0;
+	}
+	
+	/* Starts a new round in which positions are handed out without repetition until the pool is exhausted */
+	public synchronized void reset() {
+		cursor = 0;
+	}
+	
+	public synchronized Location next(World world) {
+		Validate.isTrue(positions.length > 0, "Pool is empty");
+		
+		if (cursor == positions.length) {
+			//More players than spaced positions, start handing out positions again
+			cursor = 0;
+		}
+		
+		int index = cursor + random.nextInt(positions.length - cursor);
+		long position = positions[index];
+		positions[index] = positions[cursor];
+		positions[cursor++] = position;
+		
+		return new Location(world, BlockPositions.unpackX(position) + 0.5, BlockPositions.unpackY(position),
+				BlockPositions.unpackZ(position) + 0.5);
+	}
+	
+}
@@ -0,0 +1,274 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core.game;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.bukkit.BukkitWorld;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.regions.RegionOperationException;
+import de.xaniox.heavyspleef.core.HeavySpleef;
+import de.xaniox.heavyspleef.core.flag.AbstractFlag;
+import de.xaniox.heavyspleef.core.flag.FlagRegistry;
+import de.xaniox.heavyspleef.core.flag.UnloadedFlag;
+import de.xaniox.heavyspleef.core.floor.CompactFloor;
+import de.xaniox.heavyspleef.core.floor.Floor;
+import org.apache.commons.lang.Validate;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.dom4j.DocumentHelper;
+import org.dom4j.Element;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Defines the floors, deathzones and flags of an arena once so that any
+ * number of games can be created from it at an offset or in another world.
+ * All instances read their blocks from the floors of the template, only
+ * regions and flag values are copied.<br><br>
+ * 
+ * Templates are an API for add-ons. They are neither exposed through commands
+ * nor persisted, so templates and their instances only exist until the plugin
+ * is disabled. Instances are removed by {@link GameManager#deleteGame(String)}.
+ */
+public class ArenaTemplate {
+	
+	private final HeavySpleef heavySpleef;
+	private final String name;
+	private final World world;
+	private final Map<String, CompactFloor> floors;
+	private final Map<String, Region> deathzones;
+	private final List<Element> flagElements;
+	private final Set<Game> instances;
+	private boolean disposed;
+	
+	private ArenaTemplate(HeavySpleef heavySpleef, String name, World world, Map<String, CompactFloor> floors, 
+			Map<String, Region> deathzones, List<Element> flagElements) {
+		this.heavySpleef = heavySpleef;
+		this.name = name;
+		this.world = world;
+		this.floors = floors;
+		this.deathzones = deathzones;
+		this.flagElements = flagElements;
+		this.instances = Sets.newLinkedHashSet();
+	}
+	
+	/**
+	 * Captures the current floors, deathzones and flags of a game.
+	 * Later changes to the game are not reflected by the template
+	 */
+	public static ArenaTemplate of(String name, Game game) {
+		ImmutableMap.Builder<String, CompactFloor> floorsBuilder = ImmutableMap.builder();
+		for (Floor floor : game.getFloors()) {
+			CompactFloor compactFloor = floor instanceof CompactFloor ? (CompactFloor) floor
+					: CompactFloor.fromClipboard(floor.getName(), floor.getClipboard());
+			
+			floorsBuilder.put(floor.getName(), compactFloor);
+		}
+		
+		ImmutableMap.Builder<String, Region> deathzonesBuilder = ImmutableMap.builder();
+		for (Entry<String, Region> entry : game.getDeathzones().entrySet()) {
+			deathzonesBuilder.put(entry.getKey(), entry.getValue().clone());
+		}
+		
+		ImmutableList.Builder<Element> flagsBuilder = ImmutableList.builder();
+		for (Entry<String, AbstractFlag<?>> entry : game.getFlagManager().getPresentFlags().entrySet()) {
+			AbstractFlag<?> flag = entry.getValue();
+			Element element;
+			
+			if (flag instanceof UnloadedFlag) {
+				element = ((UnloadedFlag) flag).getXmlElement().createCopy();
+			} else {
+				element = DocumentHelper.createElement("flag");
+				element.addAttribute("name", entry.getKey());
+				flag.marshal(element);
+			}
+			
+			flagsBuilder.add(element);
+		}
+		
+		return new ArenaTemplate(game.getHeavySpleef(), name, game.getWorld(), floorsBuilder.build(), 
+				deathzonesBuilder.build(), flagsBuilder.build());
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public World getWorld() {
+		return world;
+	}
+	
+	public Map<String, CompactFloor> getFloors() {
+		return floors;
+	}
+	
+	public synchronized Set<Game> getInstances() {
+		return ImmutableSet.copyOf(instances);
+	}
+	
+	public Game createInstance(String instanceName, Vector offset) {
+		return createInstance(instanceName, world, offset);
+	}
+	
+	/**
+	 * Creates a new game from this template and adds it to the game manager
+	 * 
+	 * @param instanceName The name of the new game
+	 * @param world The world to place the instance in, e.g. a clone of the template world
+	 * @param offset The offset of the instance relative to the template
+	 */
+	public synchronized Game createInstance(String instanceName, World world, Vector offset) {
+		Validate.isTrue(!disposed, "Template has already been disposed");
+		
+		GameManager gameManager = heavySpleef.getGameManager();
+		Validate.isTrue(!gameManager.hasGame(instanceName), "A game with the name '" + instanceName + "' already exists");
+		
+		Game game = new Game(heavySpleef, instanceName, world);
+		game.setTemplate(this);
+		com.sk89q.worldedit.world.World worldEditWorld = new BukkitWorld(world);
+		
+		for (CompactFloor floor : floors.values()) {
+			Region region = relocate(floor.getRegion(), worldEditWorld, offset);
+			game.addFloor(floor.share(region, floor.getOrigin().add(offset)));
+		}
+		
+		for (Entry<String, Region> entry : deathzones.entrySet()) {
+			game.addDeathzone(entry.getKey(), relocate(entry.getValue(), worldEditWorld, offset));
+		}
+		
+		addFlags(game, world, offset);
+		
+		instances.add(game);
+		gameManager.addGame(game, false);
+		return game;
+	}
+	
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void addFlags(Game game, World world, Vector offset) {
+		FlagRegistry registry = heavySpleef.getFlagRegistry();
+		
+		for (Element element : flagElements) {
+			Element copy = element.createCopy();
+			String flagName = copy.attributeValue("name");
+			Class<? extends AbstractFlag<?>> clazz = registry.getFlagClass(flagName);
+			AbstractFlag<?> flag;
+			
+			if (clazz != null && registry.checkHooks(clazz)) {
+				flag = registry.newFlagInstance(flagName, AbstractFlag.class, game);
+				flag.unmarshal(copy);
+				
+				//Move spawnpoints, lobbies etc. along with the arena
+				Object value = flag.getValue();
+				Object relocated = relocateValue(value, world, offset);
+				
+				if (relocated != value) {
+					((AbstractFlag) flag).setValue(relocated);
+				}
+			} else {
+				UnloadedFlag unloaded = new UnloadedFlag();
+				unloaded.setXmlElement(copy);
+				flag = unloaded;
+			}
+			
+			game.addFlag(flag, false);
+		}
+		
+		for (AbstractFlag<?> flag : game.getFlagManager().getFlags()) {
+			flag.onFlagAdd(game);
+		}
+		
+		game.getFlagManager().revalidateParents();
+	}
+	
+	/* Moves locations, also inside of lists and map values, and returns the value itself if there are none */
+	@SuppressWarnings("unchecked")
+	private static Object relocateValue(Object value, World world, Vector offset) {
+		if (value instanceof Location) {
+			Location location = ((Location) value).clone();
+			location.setWorld(world);
+			location.add(offset.getX(), offset.getY(), offset.getZ());
+			
+			return location;
+		} else if (value instanceof List) {
+			List<Object> list = (List<Object>) value;
+			List<Object> relocatedList = Lists.newArrayListWithCapacity(list.size());
+			boolean relocated = false;
+			
+			for (Object item : list) {
+				Object relocatedItem = relocateValue(item, world, offset);
+				relocated |= relocatedItem != item;
+				relocatedList.add(relocatedItem);
+			}
+			
+			return relocated ? relocatedList : value;
+		} else if (value instanceof Map) {
+			Map<Object, Object> map = (Map<Object, Object>) value;
+			Map<Object, Object> relocatedMap = Maps.newLinkedHashMap();
+			boolean relocated = false;
+			
+			for (Entry<Object, Object> entry : map.entrySet()) {
+				Object relocatedValue = relocateValue(entry.getValue(), world, offset);
+				relocated |= relocatedValue != entry.getValue();
+				relocatedMap.put(entry.getKey(), relocatedValue);
+			}
+			
+			return relocated ? relocatedMap : value;
+		}
+		
+		return value;
+	}
+	
+	private static Region relocate(Region region, com.sk89q.worldedit.world.World world, Vector offset) {
+		Region relocated = region.clone();
+		relocated.setWorld(world);
+		
+		try {
+			relocated.shift(offset);
+		} catch (RegionOperationException e) {
+			throw new RuntimeException(e);
+		}
+		
+		return relocated;
+	}
+	
+	synchronized void removeInstance(Game game) {
+		instances.remove(game);
+	}
+	
+	/**
+	 * Prevents further instances from being created. Existing instances stay
+	 * playable, the floors are collected once the last one has been deleted
+	 */
+	public synchronized void dispose() {
+		disposed = true;
+	}
+	
+	public synchronized boolean isDisposed() {
+		return disposed;
+	}
+	
+}
@@ -0,0 +1,118 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core.game;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import de.xaniox.heavyspleef.core.BlockPositions;
+import de.xaniox.heavyspleef.core.collection.LongIntHashMap;
+import de.xaniox.heavyspleef.core.player.SpleefPlayer;
+import org.bukkit.block.Block;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/* Keeps track of the player who broke a block last, keyed by packed block positions */
+public class BlockOwnerIndex {
+	
+	private static final int NO_OWNER = -1;
+	
+	private final LongIntHashMap owners;
+	private final List<SpleefPlayer> players;
+	private final Map<SpleefPlayer, Integer> slots;
+	private int[] brokenCounts;
+	
+	public BlockOwnerIndex() {
+		this.owners = new LongIntHashMap(NO_OWNER);
+		this.players = Lists.newArrayList();
+		this.slots = Maps.newHashMap();
+		this.brokenCounts = new int[8];
+	}
+	
+	public void add(SpleefPlayer player, int x, int y, int z) {
+		int slot = getSlot(player);
+		int previous = owners.put(BlockPositions.pack(x, y, z), slot);
+		
+		if (previous != slot) {
+			brokenCounts[slot]++;
+		}
+	}
+	
+	public void add(SpleefPlayer player, Block block) {
+		add(player, block.getX(), block.getY(), block.getZ());
+	}
+	
+	private int getSlot(SpleefPlayer player) {
+		Integer slot = slots.get(player);
+		if (slot != null) {
+			return slot;
+		}
+		
+		int newSlot = players.size();
+		players.add(player);
+		slots.put(player, newSlot);
+		
+		if (newSlot == brokenCounts.length) {
+			brokenCounts = Arrays.copyOf(brokenCounts, newSlot << 1);
+		}
+		
+		return newSlot;
+	}
+	
+	public SpleefPlayer getOwner(int x, int y, int z) {
+		int slot = owners.get(BlockPositions.pack(x, y, z));
+		return slot == NO_OWNER ? null : players.get(slot);
+	}
+	
+	public int getBrokenCount(SpleefPlayer player) {
+		Integer slot = slots.get(player);
+		return slot == null ? 0 : brokenCounts[slot];
+	}
+	
+	public long[] getPositions() {
+		final long[] positions = new long[owners.size()];
+		owners.forEach(new LongIntHashMap.EntryVisitor() {
+			
+			private int index;
+			
+			@Override
+			public void visit(long key, int value) {
+				positions[index++] = key;
+			}
+		});
+		
+		return positions;
+	}
+	
+	public int size() {
+		return owners.size();
+	}
+	
+	public boolean isEmpty() {
+		return owners.isEmpty();
+	}
+	
+	public void clear() {
+		owners.clear();
+		players.clear();
+		slots.clear();
+		Arrays.fill(brokenCounts, 0);
+	}
+	
+}
@@ -17,17 +17,21 @@
  */
 package de.xaniox.heavyspleef.core.game;
 
-import de.xaniox.heavyspleef.core.SimpleBasicTask;
-import org.bukkit.plugin.Plugin;
+import de.xaniox.heavyspleef.core.TickEngine;
+import de.xaniox.heavyspleef.core.TickEngineTask;
 
-public class CountdownTask extends SimpleBasicTask {
+public class CountdownTask extends TickEngineTask {
 	
 	private final int length;
 	private int remaining;
 	private CountdownCallback callback;
 	
-	public CountdownTask(Plugin plugin, int length, CountdownCallback callback) {
-		super(plugin, TaskType.SYNC_REPEATING_TASK, 0L, 20L);
+	public CountdownTask(TickEngine engine, int length, CountdownCallback callback) {
+		this(engine, null, length, callback);
+	}
+	
+	public CountdownTask(TickEngine engine, Game game, int length, CountdownCallback callback) {
+		super(engine, game, 0L, 20L, true);
 		
 		this.length = length;
 		this.remaining = length;
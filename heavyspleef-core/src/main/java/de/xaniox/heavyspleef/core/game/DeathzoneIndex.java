@@ -0,0 +1,161 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core.game;
+
+import com.google.common.collect.Lists;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import de.xaniox.heavyspleef.core.BlockPositions;
+import de.xaniox.heavyspleef.core.collection.LongIntHashMap;
+
+import java.util.Collection;
+import java.util.List;
+
+public class DeathzoneIndex {
+	
+	public static final DeathzoneIndex EMPTY = new DeathzoneIndex(new Region[0], new int[0], new boolean[0], new LongIntHashMap(0, -1), new int[0][], new int[0]);
+	
+	private static final int CELL_SHIFT = 4;
+	/* Deathzones spanning more cells than this are not gridded but tested against their bounds directly */
+	private static final int MAX_CELLS_PER_ZONE = 4096;
+	
+	private final Region[] regions;
+	/* Block bounds of each deathzone: minX, minY, minZ, maxX, maxY, maxZ */
+	private final int[] bounds;
+	private final boolean[] cuboid;
+	private final LongIntHashMap cellIndices;
+	private final int[][] cells;
+	private final int[] unbucketed;
+	
+	private DeathzoneIndex(Region[] regions, int[] bounds, boolean[] cuboid, LongIntHashMap cellIndices, int[][] cells, int[] unbucketed) {
+		this.regions = regions;
+		this.bounds = bounds;
+		this.cuboid = cuboid;
+		this.cellIndices = cellIndices;
+		this.cells = cells;
+		this.unbucketed = unbucketed;
+	}
+	
+	public static DeathzoneIndex build(Collection<Region> regionCollection) {
+		Region[] regions = regionCollection.toArray(new Region[regionCollection.size()]);
+		if (regions.length == 0) {
+			return EMPTY;
+		}
+		
+		int[] bounds = new int[regions.length * 6];
+		boolean[] cuboid = new boolean[regions.length];
+		LongIntHashMap cellIndices = new LongIntHashMap(-1);
+		List<int[]> cells = Lists.newArrayList();
+		int[] unbucketed = new int[0];
+		
+		for (int slot = 0; slot < regions.length; slot++) {
+			Region region = regions[slot];
+			Vector min = region.getMinimumPoint();
+			Vector max = region.getMaximumPoint();
+			
+			int offset = slot * 6;
+			bounds[offset] = min.getBlockX();
+			bounds[offset + 1] = min.getBlockY();
+			bounds[offset + 2] = min.getBlockZ();
+			bounds[offset + 3] = max.getBlockX();
+			bounds[offset + 4] = max.getBlockY();
+			bounds[offset + 5] = max.getBlockZ();
+			cuboid[slot] = region instanceof CuboidRegion;
+			
+			int minCellX = bounds[offset] >> CELL_SHIFT;
+			int minCellY = bounds[offset + 1] >> CELL_SHIFT;
+			int minCellZ = bounds[offset + 2] >> CELL_SHIFT;
+			int maxCellX = bounds[offset + 3] >> CELL_SHIFT;
+			int maxCellY = bounds[offset + 4] >> CELL_SHIFT;
+			int maxCellZ = bounds[offset + 5] >> CELL_SHIFT;
+			
+			long cellCount = (long) (maxCellX - minCellX + 1) * (maxCellY - minCellY + 1) * (maxCellZ - minCellZ + 1);
+			if (cellCount > MAX_CELLS_PER_ZONE) {
+				unbucketed = append(unbucketed, slot);
+				continue;
+			}
+			
+			for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+				for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+					for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+						long cellKey = BlockPositions.pack(cellX, cellY, cellZ);
+						int cellIndex = cellIndices.get(cellKey);
+						
+						if (cellIndex < 0) {
+							cellIndices.put(cellKey, cells.size());
+							cells.add(new int[] { slot });
+						} else {
+							cells.set(cellIndex, append(cells.get(cellIndex), slot));
+						}
+					}
+				}
+			}
+		}
+		
+		return new DeathzoneIndex(regions, bounds, cuboid, cellIndices, cells.toArray(new int[cells.size()][]), unbucketed);
+	}
+	
+	private static int[] append(int[] array, int value) {
+		int[] result = new int[array.length + 1];
+		System.arraycopy(array, 0, result, 0, array.length);
+		result[array.length] = value;
+		return result;
+	}
+	
+	public boolean isEmpty() {
+		return regions.length == 0;
+	}
+	
+	public boolean contains(int x, int y, int z) {
+		if (regions.length == 0) {
+			return false;
+		}
+		
+		for (int slot : unbucketed) {
+			if (contains(slot, x, y, z)) {
+				return true;
+			}
+		}
+		
+		int cellIndex = cellIndices.get(BlockPositions.pack(x >> CELL_SHIFT, y >> CELL_SHIFT, z >> CELL_SHIFT));
+		if (cellIndex < 0) {
+			return false;
+		}
+		
+		for (int slot : cells[cellIndex]) {
+			if (contains(slot, x, y, z)) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	private boolean contains(int slot, int x, int y, int z) {
+		int offset = slot * 6;
+		if (x < bounds[offset] || y < bounds[offset + 1] || z < bounds[offset + 2]
+				|| x > bounds[offset + 3] || y > bounds[offset + 4] || z > bounds[offset + 5]) {
+			return false;
+		}
+		
+		//The bounds of a cuboid are the region itself, other shapes need an exact test
+		return cuboid[slot] || regions[slot].contains(new Vector(x, y, z));
+	}
+	
+}
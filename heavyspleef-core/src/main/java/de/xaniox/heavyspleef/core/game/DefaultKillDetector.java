@@ -17,20 +17,13 @@
  */
 package de.xaniox.heavyspleef.core.game;
 
-import com.google.common.collect.BiMap;
 import com.sk89q.worldedit.Vector;
 import com.sk89q.worldedit.bukkit.BukkitUtil;
 import com.sk89q.worldedit.regions.FlatRegion;
 import com.sk89q.worldedit.regions.Region;
 import de.xaniox.heavyspleef.core.floor.Floor;
 import de.xaniox.heavyspleef.core.player.SpleefPlayer;
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
-import org.bukkit.World;
-import org.bukkit.block.Block;
-
-import java.util.Map.Entry;
-import java.util.Set;
 
 public class DefaultKillDetector implements KillDetector {
 
@@ -80,36 +73,12 @@ public class DefaultKillDetector implements KillDetector {
 		final int minY = region.getMinimumPoint().getBlockY();
 		final int maxY = region.getMaximumPoint().getBlockY();
 		
-		BiMap<Set<Block>, SpleefPlayer> blocksBroken = game.getBlocksBroken().inverse();
-		
-		//No wrapper method for the new WorldEdit-world...
-		final World world = Bukkit.getWorld(region.getWorld().getName());
+		BlockOwnerIndex blockOwners = game.getBlockOwners();
 		final int x = location.getBlockX();
 		final int z = location.getBlockZ();
 		
-		for (int y = minY; y <= maxY; y++) {
-			Location floorBlockLoc = new Location(world, x, y, z);
-			
-			for (Entry<Set<Block>, SpleefPlayer> entry : blocksBroken.entrySet()) {
-				Set<Block> set = entry.getKey();
-				boolean foundKiller = false;
-				
-				for (Block block : set) {
-					if (block.getLocation().equals(floorBlockLoc)) {
-						foundKiller = true;
-						break;
-					}
-				}
-				
-				if (foundKiller) {
-					killer = entry.getValue();
-					break;
-				}
-			}
-			
-			if (killer != null) {
-				break;
-			}
+		for (int y = minY; y <= maxY && killer == null; y++) {
+			killer = blockOwners.getOwner(x, y, z);
 		}
 		
 		return killer;
@@ -18,11 +18,13 @@
 package de.xaniox.heavyspleef.core.game;
 
 import com.google.common.collect.*;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.EditSessionFactory;
 import com.sk89q.worldedit.Vector;
 import com.sk89q.worldedit.WorldEdit;
-import com.sk89q.worldedit.bukkit.BukkitUtil;
 import com.sk89q.worldedit.bukkit.BukkitWorld;
 import com.sk89q.worldedit.regions.CuboidRegion;
 import com.sk89q.worldedit.regions.CylinderRegion;
@@ -37,10 +39,7 @@ import de.xaniox.heavyspleef.core.extension.ExtensionManager;
 import de.xaniox.heavyspleef.core.extension.GameExtension;
 import de.xaniox.heavyspleef.core.flag.AbstractFlag;
 import de.xaniox.heavyspleef.core.flag.FlagManager;
-import de.xaniox.heavyspleef.core.floor.Floor;
-import de.xaniox.heavyspleef.core.floor.FloorRegenerator;
-import de.xaniox.heavyspleef.core.floor.FloorRegeneratorFactory;
-import de.xaniox.heavyspleef.core.floor.RegenerationCause;
+import de.xaniox.heavyspleef.core.floor.*;
 import de.xaniox.heavyspleef.core.hook.HookReference;
 import de.xaniox.heavyspleef.core.hook.WorldEditHook;
 import de.xaniox.heavyspleef.core.i18n.I18N;
@@ -66,6 +65,7 @@ import org.bukkit.event.player.*;
 import org.bukkit.metadata.MetadataValue;
 
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class Game implements VariableSuppliable {
@@ -94,13 +94,16 @@ public class Game implements VariableSuppliable {
 	private EventBus eventBus;
 	private Set<SpleefPlayer> ingamePlayers;
 	private List<SpleefPlayer> deadPlayers;
+	private Set<SpleefPlayer> deadPlayerSet;
 	private List<SpleefPlayer> killedPlayers;
     private List<SpleefPlayer> killedLobbyPlayers;
-	private BiMap<SpleefPlayer, Set<Block>> blocksBroken;
+	private BlockOwnerIndex blockOwners;
 	private KillDetector killDetector;
 	private JoinRequester joinRequester;
-	private Queue<SpleefPlayer> queuedPlayers;
+	/* Insertion ordered for FIFO flushing, indexed server wide by the Matchmaker */
+	private Set<SpleefPlayer> queuedPlayers;
 	private CountdownTask countdownTask;
+	private ListenableFuture<?> regenerationFuture;
 	private StatisticRecorder statisticRecorder;
 	private FloorRegeneratorFactory regeneratorFactory;
 	private Queue<Location> spawnLocationQueue;
@@ -112,7 +115,13 @@ public class Game implements VariableSuppliable {
 	private ExtensionManager extensionManager;
 	private GameState gameState;
 	private Map<String, Floor> floors;
+	private volatile FloorIndex floorIndex;
+	private volatile Vector broadcastCenter;
+	private volatile SpawnpointPool spawnpointPool;
 	private Map<String, Region> deathzones;
+	private volatile DeathzoneIndex deathzoneIndex;
+	/* Set if this game is an instance of a template and must not be persisted */
+	private ArenaTemplate template;
 	
 	public Game(HeavySpleef heavySpleef, String name, World world) {
 		this.heavySpleef = heavySpleef;
@@ -122,9 +131,10 @@ public class Game implements VariableSuppliable {
 		this.i18n = I18NManager.getGlobal();
 		this.ingamePlayers = Sets.newLinkedHashSet();
 		this.deadPlayers = Lists.newArrayList();
+		this.deadPlayerSet = Sets.newHashSet();
 		this.eventBus = heavySpleef.getGlobalEventBus().newChildBus();
 		this.statisticRecorder = new StatisticRecorder(heavySpleef, heavySpleef.getLogger());
-		this.regeneratorFactory = new FloorRegeneratorFactory();
+		this.regeneratorFactory = newDefaultRegeneratorFactory();
 		this.killedPlayers = Lists.newArrayList();
         this.killedLobbyPlayers = Lists.newArrayList();
 		
@@ -137,13 +147,15 @@ public class Game implements VariableSuppliable {
 		this.flagManager = new FlagManager(heavySpleef.getPlugin(), defaults);
 		this.extensionManager = heavySpleef.getExtensionRegistry().newManagerInstance(eventBus);
 		this.deathzones = Maps.newHashMap();
-		this.blocksBroken = HashBiMap.create();
+		this.deathzoneIndex = DeathzoneIndex.EMPTY;
+		this.blockOwners = new BlockOwnerIndex();
 		this.killDetector = new DefaultKillDetector();
-		this.queuedPlayers = new LinkedList<SpleefPlayer>();
+		this.queuedPlayers = Sets.newLinkedHashSet();
 		this.spawnLocationQueue = new LinkedList<Location>();
 		
 		//Concurrent map for database schematics
 		this.floors = new ConcurrentHashMap<String, Floor>();
+		this.floorIndex = FloorIndex.EMPTY;
 		
 		WorldEditHook hook = (WorldEditHook) heavySpleef.getHookManager().getHook(HookReference.WORLDEDIT);
 		WorldEdit worldEdit = hook.getWorldEdit();
@@ -180,6 +192,18 @@ public class Game implements VariableSuppliable {
 		return world;
 	}
 	
+	public ArenaTemplate getTemplate() {
+		return template;
+	}
+	
+	void setTemplate(ArenaTemplate template) {
+		this.template = template;
+	}
+	
+	public boolean isTemplateInstance() {
+		return template != null;
+	}
+	
 	public GameState getGameState() {
 		return gameState;
 	}
@@ -200,8 +224,8 @@ public class Game implements VariableSuppliable {
 		return deadPlayers;
 	}
 	
-	public BiMap<SpleefPlayer, Set<Block>> getBlocksBroken() {
-		return blocksBroken;
+	public BlockOwnerIndex getBlockOwners() {
+		return blockOwners;
 	}
 	
 	public JoinRequester getJoinRequester() {
@@ -222,13 +246,77 @@ public class Game implements VariableSuppliable {
 	
 	public void setFloorRegeneratorFactory(FloorRegeneratorFactory regeneratorFactory) {
 		if (regeneratorFactory == null) {
-			regeneratorFactory = new FloorRegeneratorFactory();
+			regeneratorFactory = newDefaultRegeneratorFactory();
 		}
 		
 		this.regeneratorFactory = regeneratorFactory;
 	}
 	
+	private FloorRegeneratorFactory newDefaultRegeneratorFactory() {
+		DefaultConfig config = heavySpleef.getConfiguration(ConfigType.DEFAULT_CONFIG);
+		return new FloorRegeneratorFactory(config.getRegenerationSection());
+	}
+	
+	public ListenableFuture<?> regenerateFloors(RegenerationCause cause) {
+		return regenerateFloors(newEditSession(), cause);
+	}
+	
+	private ListenableFuture<?> regenerateFloors(EditSession editSession, final RegenerationCause cause) {
+		final FloorRegenerator regenerator = regeneratorFactory.retrieveRegeneratorInstance();
+		FloorRegenerationScheduler scheduler = heavySpleef.getRegenerationScheduler();
+		long[] changedPositions = blockOwners.getPositions();
+		
+		if (scheduler != null && scheduler.isEnabled() && regenerator instanceof PlanningFloorRegenerator) {
+			final PlanningFloorRegenerator planningRegenerator = (PlanningFloorRegenerator) regenerator;
+			List<ListenableFuture<Void>> futures = Lists.newArrayListWithCapacity(floors.size());
+			BlockStateView view = BlockStateViews.live(world);
+			
+			for (final Floor floor : floors.values()) {
+				if (regenerator instanceof DifferentialFloorRegenerator) {
+					//Only reads the recorded and sampled blocks
+					RegenerationPlan plan = ((DifferentialFloorRegenerator) regenerator).plan(floor, cause, changedPositions, view);
+					if (plan != null) {
+						futures.add(scheduler.schedule(plan));
+						continue;
+					}
+				}
+				
+				//Plans are computed off the main thread from the stored floors and applied over the next ticks
+				futures.add(scheduler.submit(new Callable<RegenerationPlan>() {
+					
+					@Override
+					public RegenerationPlan call() throws Exception {
+						return planningRegenerator.plan(floor, cause);
+					}
+				}, new Runnable() {
+					
+					@Override
+					public void run() {
+						regenerator.regenerate(floor, newEditSession(), cause);
+					}
+				}));
+			}
+			
+			return Futures.allAsList(futures);
+		}
+		
+		for (Floor floor : floors.values()) {
+			if (regenerator instanceof DifferentialFloorRegenerator) {
+				((DifferentialFloorRegenerator) regenerator).regenerate(floor, editSession, cause, changedPositions);
+			} else {
+				regenerator.regenerate(floor, editSession, cause);
+			}
+		}
+		
+		return Futures.immediateFuture(null);
+	}
+	
 	public boolean countdown() {
+		if (regenerationFuture != null && !regenerationFuture.isDone()) {
+			//A countdown is already waiting for the floors to be restored
+			return false;
+		}
+		
 		GameCountdownEvent event = new GameCountdownEvent(this);
 		eventBus.callEvent(event);
 		
@@ -288,11 +376,42 @@ public class Game implements VariableSuppliable {
 		EditSession editSession = editSessionFactory.getEditSession(worldEditWorld, NO_BLOCK_LIMIT);
 		
 		// Regenerate all floors
-		FloorRegenerator regenerator = regeneratorFactory.retrieveRegeneratorInstance();
-		for (Floor floor : floors.values()) {
-			regenerator.regenerate(floor, editSession, RegenerationCause.COUNTDOWN);
+		regenerationFuture = regenerateFloors(editSession, RegenerationCause.COUNTDOWN);
+		
+		// Players are teleported once the floors have been restored
+		final ListenableFuture<?> future = regenerationFuture;
+		final GameCountdownEvent countdownEvent = event;
+		if (future.isDone()) {
+			spawnPlayers(countdownEvent);
+		} else {
+			future.addListener(new Runnable() {
+				
+				@Override
+				public void run() {
+					if (regenerationFuture != future || gameState.isGameActive()) {
+						return;
+					}
+					
+					//Players may have left while the floors were restored
+					if (ingamePlayers.size() <= 1) {
+						regenerationFuture = null;
+						broadcast(i18n.getVarString(Messages.Player.NEED_MIN_PLAYERS)
+								.setVariable("amount", String.valueOf(2))
+								.toString());
+						return;
+					}
+					
+					spawnPlayers(countdownEvent);
+				}
+			}, MoreExecutors.sameThreadExecutor());
 		}
 		
+		return true;
+	}
+	
+	private void spawnPlayers(GameCountdownEvent event) {
+		DefaultConfig config = heavySpleef.getConfiguration(ConfigType.DEFAULT_CONFIG);
+		
 		// Generate a random spawnpoint
 		Floor topFloor = null;
 		for (Floor floor : floors.values()) {
@@ -301,10 +420,11 @@ public class Game implements VariableSuppliable {
 			}
 		}
 		
-		Region region = topFloor.getRegion();
+		//Start a new round of spawnpoints without repetitions
+		getSpawnpointPool(topFloor).reset();
 		
 		List<Location> randomLocations = Lists.newArrayList();
-		generateSpawnpoints(region, randomLocations, ingamePlayers.size());
+		generateSpawnpoints(topFloor, randomLocations, ingamePlayers.size());
 		
 		int listIndex = 0;
 		int randomIndex = 0;
@@ -356,7 +476,7 @@ public class Game implements VariableSuppliable {
             WarmupTeleportTask warmupTask = new WarmupTeleportTask(heavySpleef.getPlugin(), this, finalSpawns, warmupTimePeriod);
             warmupTask.start();
 
-            CountdownTask warmupCountdownTask = new CountdownTask(heavySpleef.getPlugin(), warmupTimeSeconds, new CountdownTask.CountdownCallback() {
+            CountdownTask warmupCountdownTask = new CountdownTask(heavySpleef.getTickEngine(), this, warmupTimeSeconds, new CountdownTask.CountdownCallback() {
                 @Override
                 public void onCountdownCount(CountdownTask task) {
                     float percent = (float)task.getRemaining() / task.getLength();
@@ -388,8 +508,6 @@ public class Game implements VariableSuppliable {
         } else {
             startCountdown(countdownEnabled, countdownLength);
         }
-		
-		return true;
 	}
 
     private void startCountdown(boolean countdownEnabled, int countdownLength) {
@@ -400,7 +518,7 @@ public class Game implements VariableSuppliable {
         setGameState(GameState.STARTING);
 
         if (countdownEnabled && countdownLength > 0) {
-            countdownTask = new CountdownTask(heavySpleef.getPlugin(), countdownLength, new CountdownTask.CountdownCallback() {
+            countdownTask = new CountdownTask(heavySpleef.getTickEngine(), this, countdownLength, new CountdownTask.CountdownCallback() {
 
                 @Override
                 public void onCountdownFinish(CountdownTask task) {
@@ -476,6 +594,30 @@ public class Game implements VariableSuppliable {
         return null;
     }
 	
+	private void generateSpawnpoints(Floor floor, List<Location> spawnpoints, int n) {
+		SpawnpointPool pool = getSpawnpointPool(floor);
+		if (pool.isEmpty()) {
+			//The floor is empty, fall back to random points of the region
+			generateSpawnpoints(floor.getRegion(), spawnpoints, n);
+			return;
+		}
+		
+		World world = Bukkit.getWorld(floor.getRegion().getWorld().getName());
+		for (int i = 0; i < n; i++) {
+			spawnpoints.add(pool.next(world));
+		}
+	}
+	
+	private SpawnpointPool getSpawnpointPool(Floor floor) {
+		SpawnpointPool pool = spawnpointPool;
+		if (pool == null || pool.getFloor() != floor) {
+			pool = SpawnpointPool.build(floor, SpawnpointPool.DEFAULT_SPACING);
+			spawnpointPool = pool;
+		}
+		
+		return pool;
+	}
+	
 	@SuppressWarnings("unchecked")
 	private <T extends Region> void generateSpawnpoints(T region, List<Location> spawnpoints, int n) {
 		World world = Bukkit.getWorld(region.getWorld().getName());
@@ -524,13 +666,12 @@ public class Game implements VariableSuppliable {
 	
 	private void resetGame() {
 		EditSession editSession = editSessionFactory.getEditSession(worldEditWorld, NO_BLOCK_LIMIT);
-		FloorRegenerator regenerator = regeneratorFactory.retrieveRegeneratorInstance();
-		for (Floor floor : floors.values()) {
-			regenerator.regenerate(floor, editSession, RegenerationCause.RESET);
-		}
+		regenerateFloors(editSession, RegenerationCause.RESET);
+		regenerationFuture = null;
 		
-		blocksBroken.clear();
+		blockOwners.clear();
 		deadPlayers.clear();
+		deadPlayerSet.clear();
 		spawnLocationQueue.clear();
 		setGameState(GameState.WAITING);
 		
@@ -542,12 +683,19 @@ public class Game implements VariableSuppliable {
 	}
 	
 	public void flushQueue() {
-		Queue<SpleefPlayer> failedToQueue = Lists.newLinkedList();
+		if (queuedPlayers.isEmpty()) {
+			return;
+		}
+		
+		Matchmaker matchmaker = heavySpleef.getMatchmaker();
+		List<SpleefPlayer> flushing = Lists.newArrayList(queuedPlayers);
+		List<SpleefPlayer> failedToQueue = Lists.newArrayList();
+		queuedPlayers.clear();
 		
 		//Flush the queue
-		while (!queuedPlayers.isEmpty()) {
-			SpleefPlayer player = queuedPlayers.poll();
+		for (SpleefPlayer player : flushing) {
 			if (!player.isOnline()) {
+				matchmaker.unindex(player, this);
 				continue;
 			}
 			
@@ -560,12 +708,13 @@ public class Game implements VariableSuppliable {
 				eventBus.callEvent(joinEvent);
 				
 				if (joinEvent.getJoinResult() != JoinResult.TEMPORARY_DENY) {
+					matchmaker.unindex(player, this);
 					join(player, joinEvent);
 					continue;
 				}
 			}
 			
-			failedToQueue.offer(player);
+			failedToQueue.add(player);
 		}
 		
 		queuedPlayers.addAll(failedToQueue);
@@ -609,7 +758,7 @@ public class Game implements VariableSuppliable {
 		return join(player, null);
 	}
 	
-	private JoinResult join(SpleefPlayer player, PlayerPreJoinGameEvent event) {
+	JoinResult join(SpleefPlayer player, PlayerPreJoinGameEvent event) {
 		if (ingamePlayers.contains(player)) {
 			return JoinResult.PERMANENT_DENY;
 		}
@@ -650,6 +799,7 @@ public class Game implements VariableSuppliable {
 		}
 		
 		ingamePlayers.add(player);
+		updatePlayerIndex(player, true);
 		
 		if (gameState == GameState.WAITING) {
 			setGameState(GameState.LOBBY);
@@ -668,14 +818,12 @@ public class Game implements VariableSuppliable {
 						topFloor = floor;
 					}
 				}
-				
-				Region region = topFloor.getRegion();
 
                 if (event.getGameTeleportationLocation() != null) {
                     location = event.getGameTeleportationLocation();
                 } else {
                     List<Location> randomLocations = Lists.newArrayList();
-                    generateSpawnpoints(region, randomLocations, 1);
+                    generateSpawnpoints(topFloor, randomLocations, 1);
 
                     location = randomLocations.get(0);
                 }
@@ -731,6 +879,7 @@ public class Game implements VariableSuppliable {
 		}
 		
 		queuedPlayers.add(player);
+		heavySpleef.getMatchmaker().index(player, this);
 		return true;
 	}
 	
@@ -743,10 +892,24 @@ public class Game implements VariableSuppliable {
 		eventBus.callEvent(event);
 		
 		queuedPlayers.remove(player);
+		heavySpleef.getMatchmaker().unindex(player, this);
+	}
+	
+	/* Used by the Matchmaker once a player from this queue joins another arena */
+	void removeQueued(SpleefPlayer player) {
+		queuedPlayers.remove(player);
 	}
 	
+	/**
+	 * Gets the players waiting in the queue of this game in the order they
+	 * have been queued. The returned queue is a copy, changes to it do not
+	 * affect the queue of this game, use {@link #queue(SpleefPlayer)} and
+	 * {@link #unqueue(SpleefPlayer)} instead
+	 * 
+	 * @return A copy of the queue
+	 */
 	public Queue<SpleefPlayer> getQueuedPlayers() {
-		return queuedPlayers;
+		return Lists.newLinkedList(queuedPlayers);
 	}
 	
 	public void leave(SpleefPlayer player) {
@@ -759,9 +922,11 @@ public class Game implements VariableSuppliable {
 		}
 		
 		ingamePlayers.remove(player);
+		updatePlayerIndex(player, false);
 		
 		if (gameState == GameState.INGAME) {
 			deadPlayers.add(player);
+			deadPlayerSet.add(player);
 		}
 		
 		SpleefPlayer killer = null;
@@ -775,7 +940,9 @@ public class Game implements VariableSuppliable {
 		if (event.isCancelled()) {
 			//Add the player again...
 			ingamePlayers.add(player);
+			updatePlayerIndex(player, true);
 			deadPlayers.remove(player);
+			deadPlayerSet.remove(player);
 			return;
 		}
 		
@@ -963,6 +1130,20 @@ public class Game implements VariableSuppliable {
 		requestLose(player, true, QuitCause.KICK, sender, message);
 	}
 	
+	private void updatePlayerIndex(SpleefPlayer player, boolean ingame) {
+		GameManager gameManager = heavySpleef.getGameManager();
+		if (gameManager == null || gameManager.getGame(name) != this) {
+			//This game is not managed (e.g. during migration)
+			return;
+		}
+		
+		if (ingame) {
+			gameManager.indexPlayer(player, this);
+		} else {
+			gameManager.unindexPlayer(player, this);
+		}
+	}
+	
 	public Set<SpleefPlayer> getPlayers() {
 		return ingamePlayers;
 	}
@@ -971,6 +1152,12 @@ public class Game implements VariableSuppliable {
 		return ingamePlayers.contains(player);
 	}
 	
+	/* Whether this game holds any state of the player: ingame, queued or waiting for a post-game respawn */
+	public boolean isInvolved(SpleefPlayer player) {
+		return ingamePlayers.contains(player) || isQueued(player) || killedPlayers.contains(player)
+				|| killedLobbyPlayers.contains(player);
+	}
+	
 	public void registerGameListener(SpleefListener listener) {
 		eventBus.registerListener(listener);
 	}
@@ -1050,11 +1237,25 @@ public class Game implements VariableSuppliable {
 	}
 	
 	public void addFloor(Floor floor) {
-		floors.put(floor.getName(), floor);
+		synchronized (floors) {
+			floors.put(floor.getName(), floor);
+			floorIndex = FloorIndex.build(floors.values());
+			spawnpointPool = null;
+			updateBroadcastCenter();
+		}
 	}
 	
 	public Floor removeFloor(String name) {
-		return floors.remove(name);
+		synchronized (floors) {
+			Floor floor = floors.remove(name);
+			if (floor != null) {
+				floorIndex = FloorIndex.build(floors.values());
+				spawnpointPool = null;
+				updateBroadcastCenter();
+			}
+			
+			return floor;
+		}
 	}
 	
 	public boolean isFloorPresent(String name) {
@@ -1069,6 +1270,19 @@ public class Game implements VariableSuppliable {
 		return floors.values();
 	}
 	
+	public FloorIndex getFloorIndex() {
+		return floorIndex;
+	}
+	
+	public Floor getFloorAt(Block block) {
+		World blockWorld = block.getWorld();
+		if (blockWorld != world && !blockWorld.getName().equals(world.getName())) {
+			return null;
+		}
+		
+		return floorIndex.getFloorAt(block);
+	}
+	
 	public boolean canSpleef(Block block) {
 		if (block.getType() == Material.AIR) {
 			//Player can not "spleef" an empty block
@@ -1080,23 +1294,29 @@ public class Game implements VariableSuppliable {
 			return false;
 		}
 		
-		boolean onFloor = false;
-		for (Floor floor : getFloors()) {
-			if (floor.contains(block)) {
-				onFloor = true;
-				break;
-			}
-		}
-		
-		return onFloor;
+		return getFloorAt(block) != null;
 	}
 	
 	public void addDeathzone(String name, Region region) {
-		deathzones.put(name, region);
+		synchronized (deathzones) {
+			deathzones.put(name, region);
+			deathzoneIndex = DeathzoneIndex.build(deathzones.values());
+		}
 	}
 	
 	public Region removeDeathzone(String name) {
-		return deathzones.remove(name);
+		synchronized (deathzones) {
+			Region region = deathzones.remove(name);
+			if (region != null) {
+				deathzoneIndex = DeathzoneIndex.build(deathzones.values());
+			}
+			
+			return region;
+		}
+	}
+	
+	public DeathzoneIndex getDeathzoneIndex() {
+		return deathzoneIndex;
 	}
 	
 	public Region getDeathzone(String name) {
@@ -1155,23 +1375,24 @@ public class Game implements VariableSuppliable {
 	}
 	
 	@SuppressWarnings("unchecked")
-	public synchronized <T> T getPropertyValue(GameProperty property) {
+	public <T> T getPropertyValue(GameProperty property) {
 		return (T) flagManager.getProperty(property);
 	}
 	
+	public boolean getBooleanProperty(GameProperty property) {
+		return flagManager.getPropertySnapshot().getBoolean(property);
+	}
+	
+	public int getIntProperty(GameProperty property) {
+		return flagManager.getPropertySnapshot().getInt(property);
+	}
+	
 	public void requestProperty(GameProperty property, Object value) {
 		flagManager.requestProperty(property, value);
 	}
 	
 	public void addBlockBroken(SpleefPlayer player, Block brokenBlock) {
-		Set<Block> set = blocksBroken.get(player);
-		if (set == null) {
-			// Lazily initialize the set
-			set = Sets.newHashSet();
-			blocksBroken.put(player, set);
-		}
-		
-		set.add(brokenBlock);
+		blockOwners.add(player, brokenBlock);
 	}
 	
 	public void setKillDetector(KillDetector detector) {
@@ -1188,22 +1409,41 @@ public class Game implements VariableSuppliable {
 		switch (target) {
 		case PARTICIPATED:
 		case AROUND_GAME:
-			//Use any floor as a fixpoint
-			Iterator<Floor> iterator = floors.values().iterator();
-			if (iterator.hasNext()) {
-				Floor floor = iterator.next();
+			Vector center = broadcastCenter;
+			if (center != null) {
+				String prefixedMessage = heavySpleef.getSpleefPrefix() + message;
+				boolean participated = target == BroadcastTarget.PARTICIPATED;
 				
-				Vector center = floor.getRegion().getCenter();
-				int broadcastRadius = getPropertyValue(GameProperty.BROADCAST_RADIUS);
+				int broadcastRadius = getIntProperty(GameProperty.BROADCAST_RADIUS);
+				double radiusSq = (double) broadcastRadius * broadcastRadius;
+				double centerX = center.getX();
+				double centerY = center.getY();
+				double centerZ = center.getZ();
+				Location location = new Location(null, 0, 0, 0);
 				
-				for (Player player : Bukkit.getOnlinePlayers()) {
-					SpleefPlayer spleefPlayer = heavySpleef.getSpleefPlayer(player);
-					Vector playerVec = BukkitUtil.toVector(player.getLocation());
+				for (Player player : heavySpleef.getOnlinePlayerBuckets().getPlayers(world)) {
+					player.getLocation(location);
+					double dx = location.getX() - centerX;
+					double dy = location.getY() - centerY;
+					double dz = location.getZ() - centerZ;
 					
-					double distanceSq = center.distanceSq(playerVec);
-					if (distanceSq <= Math.pow(broadcastRadius, 2) || isIngame(spleefPlayer)
-							|| (target == BroadcastTarget.PARTICIPATED && deadPlayers.contains(spleefPlayer))) {
-						player.sendMessage(heavySpleef.getSpleefPrefix() + message);
+					if (dx * dx + dy * dy + dz * dz <= radiusSq || isParticipant(player, participated)) {
+						player.sendMessage(prefixedMessage);
+					}
+				}
+				
+				//Participants in other worlds are not covered by the bucket of this world
+				for (SpleefPlayer player : ingamePlayers) {
+					if (player.isOnline() && player.getBukkitPlayer().getWorld() != world) {
+						player.getBukkitPlayer().sendMessage(prefixedMessage);
+					}
+				}
+				
+				if (participated) {
+					for (SpleefPlayer player : deadPlayerSet) {
+						if (player.isOnline() && !ingamePlayers.contains(player) && player.getBukkitPlayer().getWorld() != world) {
+							player.getBukkitPlayer().sendMessage(prefixedMessage);
+						}
 					}
 				}
 				
@@ -1224,6 +1464,21 @@ public class Game implements VariableSuppliable {
 		}
 	}
 	
+	private boolean isParticipant(Player bukkitPlayer, boolean includeDead) {
+		SpleefPlayer player = heavySpleef.getSpleefPlayer(bukkitPlayer);
+		if (player == null) {
+			return false;
+		}
+		
+		return ingamePlayers.contains(player) || (includeDead && deadPlayerSet.contains(player));
+	}
+	
+	private void updateBroadcastCenter() {
+		//Use any floor as a fixpoint
+		Iterator<Floor> iterator = floors.values().iterator();
+		broadcastCenter = iterator.hasNext() ? iterator.next().getRegion().getCenter() : null;
+	}
+	
 	/* Event hooks */
 	@SuppressWarnings("deprecation")
 	public void onPlayerInteract(PlayerInteractEvent event, SpleefPlayer player) {
@@ -1242,18 +1497,11 @@ public class Game implements VariableSuppliable {
 			return;
 		}
 		
-		boolean isInstantBreak = getPropertyValue(GameProperty.INSTANT_BREAK);
-		boolean playBreakEffect = getPropertyValue(GameProperty.PLAY_BLOCK_BREAK);
+		boolean isInstantBreak = getBooleanProperty(GameProperty.INSTANT_BREAK);
+		boolean playBreakEffect = getBooleanProperty(GameProperty.PLAY_BLOCK_BREAK);
 		
 		if (action == Action.LEFT_CLICK_BLOCK && isInstantBreak) {
-			boolean breakBlock = false;
-			
-			for (Floor floor : floors.values()) {
-				if (floor.contains(block)) {
-					breakBlock = true;
-					break;
-				}
-			}
+			boolean breakBlock = getFloorAt(block) != null;
 			
 			if (breakBlock) {
 				PlayerBlockBreakEvent breakEvent = new PlayerBlockBreakEvent(this, player, block);
@@ -1283,16 +1531,10 @@ public class Game implements VariableSuppliable {
 		
 		Block block = event.getBlock();
 		
-		boolean onFloor = false;
-		for (Floor floor : floors.values()) {
-			if (floor.contains(block)) {
-				onFloor = true;
-				break;
-			}
-		}
+		boolean onFloor = getFloorAt(block) != null;
 		
-		boolean disableBuild = getPropertyValue(GameProperty.DISABLE_BUILD);
-		boolean disableFloorBreak = getPropertyValue(GameProperty.DISABLE_FLOOR_BREAK);
+		boolean disableBuild = getBooleanProperty(GameProperty.DISABLE_BUILD);
+		boolean disableFloorBreak = getBooleanProperty(GameProperty.DISABLE_FLOOR_BREAK);
 		
 		if ((!onFloor && disableBuild) || disableFloorBreak) {
 			event.setCancelled(true);
@@ -1321,7 +1563,7 @@ public class Game implements VariableSuppliable {
 			return;
 		}
 		
-		boolean disableBuild = getPropertyValue(GameProperty.DISABLE_BUILD);
+		boolean disableBuild = getBooleanProperty(GameProperty.DISABLE_BUILD);
 		
 		if (disableBuild) {
 			event.setCancelled(true);
@@ -1329,21 +1571,21 @@ public class Game implements VariableSuppliable {
 	}
 	
 	public void onPlayerPickupItem(PlayerPickupItemEvent event, SpleefPlayer player) {
-		boolean disablePickup = getPropertyValue(GameProperty.DISABLE_ITEM_PICKUP);
+		boolean disablePickup = getBooleanProperty(GameProperty.DISABLE_ITEM_PICKUP);
 		if (disablePickup) {
 			event.setCancelled(true);
 		}
 	}
 	
 	public void onPlayerDropItem(PlayerDropItemEvent event, SpleefPlayer player) {
-		boolean disableDrop = getPropertyValue(GameProperty.DISABLE_ITEM_DROP);
+		boolean disableDrop = getBooleanProperty(GameProperty.DISABLE_ITEM_DROP);
 		if (disableDrop) {
 			event.setCancelled(true);
 		}
 	}
 	
 	public void onPlayerFoodLevelChange(FoodLevelChangeEvent event, SpleefPlayer player) {
-		boolean noHunger = getPropertyValue(GameProperty.DISABLE_HUNGER);
+		boolean noHunger = getBooleanProperty(GameProperty.DISABLE_HUNGER);
 		if (noHunger) {
 			event.setCancelled(true);
 		}
@@ -1353,8 +1595,8 @@ public class Game implements VariableSuppliable {
         DefaultConfig config = heavySpleef.getConfiguration(ConfigType.DEFAULT_CONFIG);
         LobbySection lobbySection = config.getLobbySection();
 
-		boolean disablePvp = getPropertyValue(GameProperty.DISABLE_PVP);
-		boolean disableDamage = getPropertyValue(GameProperty.DISABLE_DAMAGE);
+		boolean disablePvp = getBooleanProperty(GameProperty.DISABLE_PVP);
+		boolean disableDamage = getBooleanProperty(GameProperty.DISABLE_DAMAGE);
         boolean enableLobbyPvp = lobbySection.isEnablePvp();
 
         if (enableLobbyPvp && event.getDamager() instanceof Player && gameState == GameState.LOBBY) {
@@ -1367,7 +1609,7 @@ public class Game implements VariableSuppliable {
 	}
 	
 	public void onEntityDamageEvent(EntityDamageEvent event, SpleefPlayer damaged) {
-		boolean disableDamage = getPropertyValue(GameProperty.DISABLE_DAMAGE);
+		boolean disableDamage = getBooleanProperty(GameProperty.DISABLE_DAMAGE);
 		
 		if (event.getCause() != DamageCause.ENTITY_ATTACK && disableDamage) {
 			event.setCancelled(true);
@@ -1375,7 +1617,7 @@ public class Game implements VariableSuppliable {
 	}
 	
 	public void onEntityTargetLivingEntity(EntityTargetLivingEntityEvent event, SpleefPlayer targetted) {
-		boolean disableDamage = getPropertyValue(GameProperty.DISABLE_DAMAGE);
+		boolean disableDamage = getBooleanProperty(GameProperty.DISABLE_DAMAGE);
 		
 		if (disableDamage) {
 			event.setCancelled(true);
@@ -1402,7 +1644,7 @@ public class Game implements VariableSuppliable {
 		boolean blockCommands = false;
 		
 		if (ingamePlayers.contains(typing)) {
-			blockCommands = getPropertyValue(GameProperty.BLOCK_COMMANDS);
+			blockCommands = getBooleanProperty(GameProperty.BLOCK_COMMANDS);
 		} else if (isQueued(typing)) {
 			DefaultConfig config = heavySpleef.getConfiguration(ConfigType.DEFAULT_CONFIG);
 			QueueSection section = config.getQueueSection();
@@ -18,23 +18,36 @@
 package de.xaniox.heavyspleef.core.game;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.FutureCallback;
 import de.xaniox.heavyspleef.core.HeavySpleef;
 import de.xaniox.heavyspleef.core.player.SpleefPlayer;
 import org.apache.commons.lang.Validate;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 public class GameManager {
 
 	private final HeavySpleef heavySpleef;
 	private Map<String, Game> games;
+	/* Immutable snapshots, republished on every add, rename and delete */
+	private volatile List<Game> gameSnapshot;
+	private volatile Map<String, Game> lowerCaseNameIndex;
+	/* Index of all ingame players, maintained by Game#join and Game#leave */
+	private Map<UUID, Game> playerGameIndex;
 	
 	public GameManager(HeavySpleef heavySpleef) {
 		this.heavySpleef = heavySpleef;
-		this.games = Maps.newHashMap();
+		this.games = Maps.newLinkedHashMap();
+		this.gameSnapshot = ImmutableList.of();
+		this.lowerCaseNameIndex = ImmutableMap.of();
+		this.playerGameIndex = Maps.newConcurrentMap();
 	}
 	
 	public void addGame(Game game) {
@@ -45,9 +58,10 @@ public class GameManager {
 		String name = game.getName();
 		
 		synchronized (games) {
-			Validate.isTrue(!games.containsKey(name));
+			Validate.isTrue(!hasGame(name));
 			
 			games.put(game.getName(), game);
+			publishSnapshot();
 		}
 		
 		if (save) {
@@ -60,6 +74,18 @@ public class GameManager {
 		
 		synchronized (games) {
 			game = games.remove(getRealGameName(name));
+			publishSnapshot();
+		}
+		
+		if (game != null) {
+			playerGameIndex.values().removeAll(Collections.singleton(game));
+			heavySpleef.getMatchmaker().removeGame(game);
+		}
+		
+		if (game != null && game.isTemplateInstance()) {
+			//Instances are not persisted
+			game.getTemplate().removeInstance(game);
+			return game;
 		}
 		
 		heavySpleef.getDatabaseHandler().deleteGame(game, null);
@@ -77,60 +103,91 @@ public class GameManager {
 			
 			games.remove(oldName);
 			games.put(to, game);
+			publishSnapshot();
+		}
+		
+		if (game.isTemplateInstance()) {
+			//Instances are not persisted, there is nothing to rename
+			if (callback != null) {
+				callback.onSuccess(null);
+			}
+			
+			return;
 		}
 		
 		heavySpleef.getDatabaseHandler().renameGame(game, oldName, to, callback);
 	}
 	
-	public boolean hasGame(String name) {
-		synchronized (games) {
-			return games.containsKey(getRealGameName(name));
+	private void publishSnapshot() {
+		ImmutableMap.Builder<String, Game> nameIndexBuilder = ImmutableMap.builder();
+		for (Game game : games.values()) {
+			nameIndexBuilder.put(game.getName().toLowerCase(Locale.ENGLISH), game);
 		}
+		
+		gameSnapshot = ImmutableList.copyOf(games.values());
+		lowerCaseNameIndex = nameIndexBuilder.build();
+	}
+	
+	public boolean hasGame(String name) {
+		return getGame(name) != null;
 	}
 	
 	public Game getGame(String name) {
-		synchronized (games) {
-			return games.get(getRealGameName(name));
+		if (name == null) {
+			return null;
 		}
+		
+		return lowerCaseNameIndex.get(name.toLowerCase(Locale.ENGLISH));
 	}
 	
 	private String getRealGameName(String name) {
-		for (String gameName : games.keySet()) {
-			if (gameName.equalsIgnoreCase(name)) {
-				return gameName;
-			}
-		}
-		
-		return null;
+		Game game = getGame(name);
+		return game != null ? game.getName() : null;
 	}
 	
 	public Game getGame(SpleefPlayer player) {
-		synchronized (games) {
-			for (Game game : games.values()) {
-				if (game.getPlayers().contains(player)) {
-					return game;
+		return playerGameIndex.get(player.getUniqueId());
+	}
+	
+	void indexPlayer(SpleefPlayer player, Game game) {
+		playerGameIndex.put(player.getUniqueId(), game);
+		assert isPlayerIndexConsistent() : "Player index is inconsistent after " + player.getName() + " joined " + game.getName();
+	}
+	
+	void unindexPlayer(SpleefPlayer player, Game game) {
+		playerGameIndex.remove(player.getUniqueId(), game);
+		assert isPlayerIndexConsistent() : "Player index is inconsistent after " + player.getName() + " left " + game.getName();
+	}
+	
+	/* Debug check, evaluated on every index update when assertions are enabled */
+	boolean isPlayerIndexConsistent() {
+		int expectedSize = 0;
+		
+		for (Game game : getGames()) {
+			Set<SpleefPlayer> players = game.getPlayers();
+			expectedSize += players.size();
+			
+			for (SpleefPlayer player : players) {
+				if (playerGameIndex.get(player.getUniqueId()) != game) {
+					return false;
 				}
 			}
 		}
 		
-		return null;
+		return playerGameIndex.size() == expectedSize;
 	}
 	
 	public List<Game> getGames() {
-		synchronized (games) {
-			return ImmutableList.copyOf(games.values());
-		}
+		return gameSnapshot;
 	}
 
 	public void shutdown() {
-		synchronized (games) {
-			for (Game game : games.values()) {
-				if (!game.getGameState().isGameActive() && game.getGameState() != GameState.LOBBY) {
-					return;
-				}
-				
-				game.stop();
+		for (Game game : gameSnapshot) {
+			if (!game.getGameState().isGameActive() && game.getGameState() != GameState.LOBBY) {
+				return;
 			}
+			
+			game.stop();
 		}
 	}
 	
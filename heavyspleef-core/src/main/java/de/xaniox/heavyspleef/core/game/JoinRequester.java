@@ -19,7 +19,7 @@ package de.xaniox.heavyspleef.core.game;
 
 import com.google.common.collect.Maps;
 import de.xaniox.heavyspleef.core.HeavySpleef;
-import de.xaniox.heavyspleef.core.SimpleBasicTask;
+import de.xaniox.heavyspleef.core.TickEngineTask;
 import de.xaniox.heavyspleef.core.config.ConfigType;
 import de.xaniox.heavyspleef.core.config.DefaultConfig;
 import de.xaniox.heavyspleef.core.config.QueueSection;
@@ -57,15 +57,12 @@ public class JoinRequester {
 			QueueSection section = config.getQueueSection();
 			
 			if (result == JoinResult.TEMPORARY_DENY && section.isUseQueues() && !game.isIngame(player)) {
-				GameManager manager = game.getHeavySpleef().getGameManager();
+				Matchmaker matchmaker = game.getHeavySpleef().getMatchmaker();
 				
-				//Remove the player from all other queues
-				for (Game otherGame : manager.getGames()) {
-					if (!otherGame.isQueued(player)) {
-						continue;
-					}
-					
-					otherGame.unqueue(player);
+				//Remove the player from any other queue
+				Game queuedGame = matchmaker.getQueuedGame(player);
+				if (queuedGame != null) {
+					queuedGame.unqueue(player);
 				}
 				
 				//Queue the player
@@ -144,7 +141,7 @@ public class JoinRequester {
 				.toString(), JoinResult.PERMANENT_DENY);
 		}
 		
-		boolean joinOnCountdown = game.getPropertyValue(GameProperty.JOIN_ON_COUNTDOWN);
+		boolean joinOnCountdown = game.getBooleanProperty(GameProperty.JOIN_ON_COUNTDOWN);
 		if (game.getGameState() == GameState.INGAME || ((game.getGameState() == GameState.STARTING ||
                 game.getGameState() == GameState.WARMUP) && !joinOnCountdown)) {
 			throw new JoinValidationException(i18n.getVarString(Messages.Command.GAME_IS_INGAME)
@@ -153,12 +150,11 @@ public class JoinRequester {
 		}
 		
 		GameManager manager = game.getHeavySpleef().getGameManager();
-		for (Game other : manager.getGames()) {
-			if (other.isQueued(player)) {
-				throw new JoinValidationException(i18n.getVarString(Messages.Command.ALREADY_QUEUED)
-						.setVariable("game", other.getName())
-						.toString(), JoinResult.PERMANENT_DENY);
-			}
+		Game queuedGame = game.getHeavySpleef().getMatchmaker().getQueuedGame(player);
+		if (queuedGame != null) {
+			throw new JoinValidationException(i18n.getVarString(Messages.Command.ALREADY_QUEUED)
+					.setVariable("game", queuedGame.getName())
+					.toString(), JoinResult.PERMANENT_DENY);
 		}
 		
 		if (manager.getGame(player) != null) {
@@ -313,10 +309,10 @@ public class JoinRequester {
 			
 		}
 		
-		private class CheckTask extends SimpleBasicTask {
+		private class CheckTask extends TickEngineTask {
 
 			public CheckTask() {
-				super(heavySpleef.getPlugin(), TaskType.SYNC_REPEATING_TASK, 0L, 20L);
+				super(heavySpleef.getTickEngine(), 0L, 20L, true);
 			}
 
 			@Override
@@ -335,7 +331,7 @@ public class JoinRequester {
 					if (now.getBlockX() != previous.getBlockX() || now.getBlockY() != previous.getBlockY() || now.getBlockZ() != previous.getBlockZ()) {
 						handleFail(player, FailCause.MOVE, iterator);
 					} else {
-						holder.currentTicks += getTaskArgument(1);
+						holder.currentTicks += getPeriod();
 						
 						if (holder.currentTicks >= ticksNeeded) {
 							PvPTimerCallback callback = holder.callback;
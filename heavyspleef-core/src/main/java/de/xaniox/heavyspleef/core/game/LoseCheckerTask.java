@@ -17,115 +17,378 @@
  */
 package de.xaniox.heavyspleef.core.game;
 
-import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
-import com.sk89q.worldedit.Vector;
-import com.sk89q.worldedit.bukkit.BukkitUtil;
-import com.sk89q.worldedit.regions.Region;
 import de.xaniox.heavyspleef.core.HeavySpleef;
-import de.xaniox.heavyspleef.core.SimpleBasicTask;
+import de.xaniox.heavyspleef.core.GameTickable;
+import de.xaniox.heavyspleef.core.TickEngine;
+import de.xaniox.heavyspleef.core.collection.LongIntHashMap;
+import de.xaniox.heavyspleef.core.config.ConfigType;
+import de.xaniox.heavyspleef.core.config.DefaultConfig;
+import de.xaniox.heavyspleef.core.config.LoseDetectionSection;
+import de.xaniox.heavyspleef.core.config.LoseDetectionSection.LoseDetectionMode;
 import de.xaniox.heavyspleef.core.event.PlayerLeaveGameEvent;
 import de.xaniox.heavyspleef.core.event.SpleefListener;
 import de.xaniox.heavyspleef.core.event.Subscribe;
+import de.xaniox.heavyspleef.core.player.PlayerManager;
 import de.xaniox.heavyspleef.core.player.SpleefPlayer;
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
-import org.bukkit.block.Block;
-import org.bukkit.util.BlockIterator;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerMoveEvent;
 
-import java.util.Map;
+import java.util.Iterator;
 import java.util.Set;
 
-public class LoseCheckerTask extends SimpleBasicTask implements SpleefListener {
+public class LoseCheckerTask implements SpleefListener, GameTickable {
+	
+	private static final long POLLING_PERIOD = 4L;
 	
 	private static final Set<Material> FLOWING_MATERIALS = Sets.newHashSet(Material.WATER, Material.STATIONARY_WATER, Material.LAVA, Material.STATIONARY_LAVA);
+	private static final boolean[] FLOWING_IDS = new boolean[256];
+	
+	static {
+		for (Material material : FLOWING_MATERIALS) {
+			FLOWING_IDS[material.getId()] = true;
+		}
+	}
 	
+	private final TickEngine tickEngine;
 	private final GameManager gameManager;
-	private Map<SpleefPlayer, Location> recentLocations;
+	private final PlayerManager playerManager;
+	private final LoseDetectionMode mode;
+	private final int maxChecksPerTick;
+	private final Location locationBuffer;
+	/* Entity id of a player -> slot of his recent position in recentPositions */
+	private final LongIntHashMap recentSlots;
+	private long[] slotKeys;
+	private double[] recentPositions;
+	private int slotCount;
+	/* Players whose movement exceeded the per tick check limit in event mode */
+	private final Set<SpleefPlayer> pendingChecks;
+	private final Set<SpleefPlayer> pendingLoses;
+	private long checkTick;
+	private int checksThisTick;
 	
 	public LoseCheckerTask(HeavySpleef heavySpleef) {
-		super(heavySpleef.getPlugin(), TaskType.SYNC_REPEATING_TASK, 0L, 4L);
+		DefaultConfig config = heavySpleef.getConfiguration(ConfigType.DEFAULT_CONFIG);
+		LoseDetectionSection section = config.getLoseDetectionSection();
 		
+		this.tickEngine = heavySpleef.getTickEngine();
 		this.gameManager = heavySpleef.getGameManager();
-		this.recentLocations = Maps.newHashMap();
+		this.playerManager = heavySpleef.getPlayerManager();
+		this.mode = section.getMode();
+		this.maxChecksPerTick = section.getMaxChecksPerTick();
+		this.locationBuffer = new Location(null, 0, 0, 0);
+		this.recentSlots = new LongIntHashMap(-1);
+		this.slotKeys = new long[16];
+		this.recentPositions = new double[16 * 3];
+		this.pendingChecks = Sets.newLinkedHashSet();
+		this.pendingLoses = Sets.newLinkedHashSet();
+		
+		if (mode == LoseDetectionMode.EVENT) {
+			Bukkit.getPluginManager().registerEvents(new MoveListener(), heavySpleef.getPlugin());
+		}
 	}
-
+	
+	public void start() {
+		//Lose checks must never be deferred by the tick budget
+		if (mode == LoseDetectionMode.EVENT) {
+			tickEngine.register(new Runnable() {
+				
+				@Override
+				public void run() {
+					processPendingChecks();
+				}
+			}, 0L, 1L, true);
+		} else {
+			tickEngine.register(this, POLLING_PERIOD, true);
+		}
+	}
+	
 	@Override
-	public void run() {
-		for (Game game : gameManager.getGames()) {
-			if (game.getGameState() != GameState.INGAME) {
-				continue;
+	public void tick(Game game) {
+		if (game.getGameState() != GameState.INGAME) {
+			return;
+		}
+		
+		Set<SpleefPlayer> deathCandidates = null;
+		final boolean isLiquidDeathzone = game.getBooleanProperty(GameProperty.USE_LIQUID_DEATHZONE);
+		final DeathzoneIndex deathzoneIndex = game.getDeathzoneIndex();
+		final World world = game.getWorld();
+		
+		if (!isLiquidDeathzone && deathzoneIndex.isEmpty()) {
+			//Nothing can be hit, only keep track of the positions
+			for (SpleefPlayer player : game.getPlayers()) {
+				Location playerLoc = player.getBukkitPlayer().getLocation(locationBuffer);
+				updateRecentPosition(player, playerLoc.getX(), playerLoc.getY(), playerLoc.getZ());
 			}
 			
-			Set<SpleefPlayer> deathCandidates = null;
-			final boolean isLiquidDeathzone = game.getPropertyValue(GameProperty.USE_LIQUID_DEATHZONE);
+			return;
+		}
+		
+		for (SpleefPlayer player : game.getPlayers()) {
+			Location playerLoc = player.getBukkitPlayer().getLocation(locationBuffer);
+			double x = playerLoc.getX();
+			double y = playerLoc.getY();
+			double z = playerLoc.getZ();
 			
-			for (SpleefPlayer player : game.getPlayers()) {
-				Location playerLoc = player.getBukkitPlayer().getLocation();
-				
-				boolean isDeathCandidate = isInsideDeathzone(playerLoc, game, isLiquidDeathzone);
-				if (!isDeathCandidate && recentLocations.containsKey(player)) {
-					//Try to check every block the player has passed between the recent location and his location now
-					Location recent = recentLocations.get(player);
-					org.bukkit.util.Vector direction = playerLoc.clone().subtract(recent).toVector();
-					int directionLength = (int) direction.length();
-					
-					if (directionLength > 0) {
-						BlockIterator iterator = new BlockIterator(game.getWorld(), recent.toVector(), direction, 0D, directionLength);
-						while (iterator.hasNext()) {
-							Block passedBlock = iterator.next();
-							
-							if (isInsideDeathzone(passedBlock.getLocation(), game, isLiquidDeathzone)) {
-								isDeathCandidate = true;
-								break;
-							}
-						}
-					}
-				}
-				
-				if (isDeathCandidate) {
-					//Lazy initialization for performance optimization
-					if (deathCandidates == null) {
-						deathCandidates = Sets.newHashSet();
-					}
-					
-					deathCandidates.add(player);
+			boolean isDeathCandidate;
+			int slot = recentSlots.get(player.getBukkitPlayer().getEntityId());
+			
+			if (slot >= 0) {
+				//Check every block the player has passed between the recent location and his location now
+				int offset = slot * 3;
+				isDeathCandidate = traverse(recentPositions[offset], recentPositions[offset + 1], recentPositions[offset + 2],
+						x, y, z, world, deathzoneIndex, isLiquidDeathzone);
+			} else {
+				isDeathCandidate = isInsideDeathzone(floor(x), floor(y), floor(z), world, deathzoneIndex, isLiquidDeathzone);
+			}
+			
+			if (isDeathCandidate) {
+				//Lazy initialization for performance optimization
+				if (deathCandidates == null) {
+					deathCandidates = Sets.newHashSet();
 				}
 				
-				recentLocations.put(player, playerLoc);
+				deathCandidates.add(player);
 			}
 			
-			if (deathCandidates != null) {
-				for (SpleefPlayer deathCandidate : deathCandidates) {
-					game.requestLose(deathCandidate, QuitCause.LOSE);
-				}
+			updateRecentPosition(player, x, y, z);
+		}
+		
+		if (deathCandidates != null) {
+			for (SpleefPlayer deathCandidate : deathCandidates) {
+				game.requestLose(deathCandidate, QuitCause.LOSE);
 			}
 		}
 	}
 	
-	private boolean isInsideDeathzone(Location location, Game game, boolean useLiquidDeathzone) {
-		boolean result = false;
-		if (useLiquidDeathzone && FLOWING_MATERIALS.contains(location.getBlock().getType())) {
-			result = true;
-		} else {
-			Vector vec = BukkitUtil.toVector(location);
+	private void processPendingChecks() {
+		Iterator<SpleefPlayer> iterator = pendingChecks.iterator();
+		while (iterator.hasNext()) {
+			SpleefPlayer player = iterator.next();
 			
-			for (Region deathzone : game.getDeathzones().values()) {
-				if (deathzone.contains(vec)) {
-					//Location is in deathzone
-					result = true;
-					break;
-				}
+			//The recent position holds the start of the movement which has not been checked yet
+			int slot = recentSlots.get(player.getBukkitPlayer().getEntityId());
+			Game game = getIngameGame(player);
+			if (slot < 0 || game == null) {
+				iterator.remove();
+				continue;
+			}
+			
+			if (!acquireCheck()) {
+				break;
+			}
+			
+			iterator.remove();
+			Location playerLoc = player.getBukkitPlayer().getLocation(locationBuffer);
+			int offset = slot * 3;
+			
+			if (isDeathCandidate(game, recentPositions[offset], recentPositions[offset + 1], recentPositions[offset + 2],
+					playerLoc.getX(), playerLoc.getY(), playerLoc.getZ())) {
+				pendingLoses.add(player);
+			}
+		}
+		
+		if (pendingLoses.isEmpty()) {
+			return;
+		}
+		
+		//Loses are requested here rather than from within the move event as they teleport the player
+		SpleefPlayer[] loses = pendingLoses.toArray(new SpleefPlayer[pendingLoses.size()]);
+		pendingLoses.clear();
+		
+		for (SpleefPlayer player : loses) {
+			Game game = getIngameGame(player);
+			if (game != null) {
+				game.requestLose(player, QuitCause.LOSE);
 			}
 		}
+	}
+	
+	/* The check limit is counted per tick of the tick engine, independent of who performs the check */
+	private boolean acquireCheck() {
+		long currentTick = tickEngine.getCurrentTick();
+		if (checkTick != currentTick) {
+			checkTick = currentTick;
+			checksThisTick = 0;
+		}
+		
+		if (checksThisTick >= maxChecksPerTick) {
+			return false;
+		}
 		
-		return result;
+		checksThisTick++;
+		return true;
+	}
+	
+	private Game getIngameGame(SpleefPlayer player) {
+		Game game = gameManager.getGame(player);
+		return game != null && game.getGameState() == GameState.INGAME ? game : null;
+	}
+	
+	private boolean isDeathCandidate(Game game, double fromX, double fromY, double fromZ, double toX, double toY, double toZ) {
+		boolean isLiquidDeathzone = game.getBooleanProperty(GameProperty.USE_LIQUID_DEATHZONE);
+		DeathzoneIndex deathzoneIndex = game.getDeathzoneIndex();
+		
+		if (!isLiquidDeathzone && deathzoneIndex.isEmpty()) {
+			return false;
+		}
+		
+		return traverse(fromX, fromY, fromZ, toX, toY, toZ, game.getWorld(), deathzoneIndex, isLiquidDeathzone);
+	}
+	
+	/* Walks all blocks intersected by the segment from -> to (Amanatides & Woo), including both end blocks */
+	private boolean traverse(double fromX, double fromY, double fromZ, double toX, double toY, double toZ,
+			World world, DeathzoneIndex deathzoneIndex, boolean useLiquidDeathzone) {
+		int blockX = floor(fromX);
+		int blockY = floor(fromY);
+		int blockZ = floor(fromZ);
+		int endX = floor(toX);
+		int endY = floor(toY);
+		int endZ = floor(toZ);
+		
+		double dx = toX - fromX;
+		double dy = toY - fromY;
+		double dz = toZ - fromZ;
+		
+		int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+		int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+		int stepZ = dz > 0 ? 1 : dz < 0 ? -1 : 0;
+		
+		double deltaX = stepX != 0 ? Math.abs(1 / dx) : Double.POSITIVE_INFINITY;
+		double deltaY = stepY != 0 ? Math.abs(1 / dy) : Double.POSITIVE_INFINITY;
+		double deltaZ = stepZ != 0 ? Math.abs(1 / dz) : Double.POSITIVE_INFINITY;
+		
+		double maxX = stepX > 0 ? (blockX + 1 - fromX) * deltaX : stepX < 0 ? (fromX - blockX) * deltaX : Double.POSITIVE_INFINITY;
+		double maxY = stepY > 0 ? (blockY + 1 - fromY) * deltaY : stepY < 0 ? (fromY - blockY) * deltaY : Double.POSITIVE_INFINITY;
+		double maxZ = stepZ > 0 ? (blockZ + 1 - fromZ) * deltaZ : stepZ < 0 ? (fromZ - blockZ) * deltaZ : Double.POSITIVE_INFINITY;
+		
+		int steps = Math.abs(endX - blockX) + Math.abs(endY - blockY) + Math.abs(endZ - blockZ);
+		
+		for (int i = 0; i <= steps; i++) {
+			if (isInsideDeathzone(blockX, blockY, blockZ, world, deathzoneIndex, useLiquidDeathzone)) {
+				return true;
+			}
+			
+			if (maxX < maxY && maxX < maxZ) {
+				blockX += stepX;
+				maxX += deltaX;
+			} else if (maxY < maxZ) {
+				blockY += stepY;
+				maxY += deltaY;
+			} else {
+				blockZ += stepZ;
+				maxZ += deltaZ;
+			}
+		}
+		
+		return false;
+	}
+	
+	private static int floor(double value) {
+		int floor = (int) value;
+		return value < floor ? floor - 1 : floor;
+	}
+	
+	private boolean isInsideDeathzone(int x, int y, int z, World world, DeathzoneIndex deathzoneIndex, boolean useLiquidDeathzone) {
+		if (useLiquidDeathzone && y >= 0 && y < world.getMaxHeight()) {
+			@SuppressWarnings("deprecation")
+			int typeId = world.getBlockTypeIdAt(x, y, z);
+			
+			if (typeId < FLOWING_IDS.length && FLOWING_IDS[typeId]) {
+				return true;
+			}
+		}
+		
+		return deathzoneIndex.contains(x, y, z);
+	}
+	
+	private void updateRecentPosition(SpleefPlayer player, double x, double y, double z) {
+		long key = player.getBukkitPlayer().getEntityId();
+		int slot = recentSlots.get(key);
+		
+		if (slot < 0) {
+			if (slotCount == slotKeys.length) {
+				long[] newKeys = new long[slotKeys.length << 1];
+				System.arraycopy(slotKeys, 0, newKeys, 0, slotCount);
+				slotKeys = newKeys;
+				
+				double[] newPositions = new double[newKeys.length * 3];
+				System.arraycopy(recentPositions, 0, newPositions, 0, slotCount * 3);
+				recentPositions = newPositions;
+			}
+			
+			slot = slotCount++;
+			slotKeys[slot] = key;
+			recentSlots.put(key, slot);
+		}
+		
+		int offset = slot * 3;
+		recentPositions[offset] = x;
+		recentPositions[offset + 1] = y;
+		recentPositions[offset + 2] = z;
 	}
 	
 	@Subscribe
 	public void onPlayerLeaveGameEvent(PlayerLeaveGameEvent event) {
 		SpleefPlayer player = event.getPlayer();
-		recentLocations.remove(player);
+		pendingChecks.remove(player);
+		pendingLoses.remove(player);
+		
+		int slot = recentSlots.remove(player.getBukkitPlayer().getEntityId());
+		if (slot < 0) {
+			return;
+		}
+		
+		//Move the last slot into the freed one to keep the position array dense
+		int last = --slotCount;
+		if (slot != last) {
+			long lastKey = slotKeys[last];
+			slotKeys[slot] = lastKey;
+			System.arraycopy(recentPositions, last * 3, recentPositions, slot * 3, 3);
+			recentSlots.put(lastKey, slot);
+		}
+	}
+
+	private class MoveListener implements Listener {
+		
+		@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+		public void onPlayerMove(PlayerMoveEvent event) {
+			Location from = event.getFrom();
+			Location to = event.getTo();
+			
+			//Moving inside of a block cannot enter a deathzone
+			if (from.getBlockX() == to.getBlockX() && from.getBlockY() == to.getBlockY() && from.getBlockZ() == to.getBlockZ()) {
+				return;
+			}
+			
+			SpleefPlayer player = playerManager.getSpleefPlayer(event.getPlayer());
+			if (player == null || pendingChecks.contains(player) || pendingLoses.contains(player)) {
+				return;
+			}
+			
+			Game game = getIngameGame(player);
+			if (game == null) {
+				return;
+			}
+			
+			if (!acquireCheck()) {
+				//Defer the check, the movement is traced from here to wherever the player is once it runs
+				updateRecentPosition(player, from.getX(), from.getY(), from.getZ());
+				pendingChecks.add(player);
+				return;
+			}
+			
+			if (isDeathCandidate(game, from.getX(), from.getY(), from.getZ(), to.getX(), to.getY(), to.getZ())) {
+				pendingLoses.add(player);
+			}
+		}
+		
 	}
 
-}
\ No newline at end of file
+}
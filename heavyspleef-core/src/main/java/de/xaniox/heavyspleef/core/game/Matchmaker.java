@@ -0,0 +1,340 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core.game;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import de.xaniox.heavyspleef.core.HeavySpleef;
+import de.xaniox.heavyspleef.core.TickEngine.TickHandle;
+import de.xaniox.heavyspleef.core.event.PlayerPreJoinGameEvent;
+import de.xaniox.heavyspleef.core.event.PlayerQueueFlushEvent;
+import de.xaniox.heavyspleef.core.game.Game.JoinResult;
+import de.xaniox.heavyspleef.core.player.SpleefPlayer;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Server wide index of all queued players. Every arena belongs to a group,
+ * instances of the same {@link ArenaTemplate} share one group while any other
+ * game forms a group of its own. Once per tick queued players are assigned
+ * to the least loaded arena of their group which currently accepts players.
+ */
+public class Matchmaker implements Runnable {
+	
+	/* Bounds the flush and pre join events fired per tick, denied attempts included */
+	private static final int MAX_ATTEMPTS_PER_TICK = 32;
+	private static final int FULL_RETRY_TICKS = 20;
+	private static final int ARENA_FULL = Integer.MAX_VALUE;
+	
+	private final HeavySpleef heavySpleef;
+	private final Map<SpleefPlayer, QueueEntry> entries;
+	/* One FIFO queue per group, keyed by template or by game */
+	private final Map<Object, Set<SpleefPlayer>> groupQueues;
+	/* Arenas which denied a player temporarily, skipped until their player count changes or FULL_RETRY_TICKS passed */
+	private final Map<Game, FullMark> fullArenas;
+	private TickHandle handle;
+	
+	public Matchmaker(HeavySpleef heavySpleef) {
+		this.heavySpleef = heavySpleef;
+		this.entries = Maps.newHashMap();
+		this.groupQueues = Maps.newLinkedHashMap();
+		this.fullArenas = Maps.newHashMap();
+	}
+	
+	public void start() {
+		if (handle != null && !handle.isCancelled()) {
+			return;
+		}
+		
+		handle = heavySpleef.getTickEngine().register(this, 1, 1, false);
+	}
+	
+	public void stop() {
+		if (handle != null) {
+			handle.cancel();
+			handle = null;
+		}
+	}
+	
+	static Object getGroup(Game game) {
+		ArenaTemplate template = game.getTemplate();
+		return template != null ? template : game;
+	}
+	
+	void index(SpleefPlayer player, Game game) {
+		unindex(player);
+		
+		Object group = getGroup(game);
+		Set<SpleefPlayer> queue = groupQueues.get(group);
+		if (queue == null) {
+			queue = Sets.newLinkedHashSet();
+			groupQueues.put(group, queue);
+		}
+		
+		queue.add(player);
+		entries.put(player, new QueueEntry(game, group));
+	}
+	
+	void unindex(SpleefPlayer player, Game game) {
+		QueueEntry entry = entries.get(player);
+		if (entry == null || entry.game != game) {
+			return;
+		}
+		
+		unindex(player);
+	}
+	
+	private void unindex(SpleefPlayer player) {
+		QueueEntry entry = entries.remove(player);
+		if (entry == null) {
+			return;
+		}
+		
+		Set<SpleefPlayer> queue = groupQueues.get(entry.group);
+		if (queue != null) {
+			queue.remove(player);
+			
+			if (queue.isEmpty()) {
+				groupQueues.remove(entry.group);
+			}
+		}
+	}
+	
+	void removeGame(Game game) {
+		Iterator<Map.Entry<SpleefPlayer, QueueEntry>> iterator = entries.entrySet().iterator();
+		List<SpleefPlayer> removed = Lists.newArrayList();
+		
+		while (iterator.hasNext()) {
+			Map.Entry<SpleefPlayer, QueueEntry> entry = iterator.next();
+			if (entry.getValue().game == game) {
+				removed.add(entry.getKey());
+			}
+		}
+		
+		for (SpleefPlayer player : removed) {
+			unindex(player);
+		}
+		
+		fullArenas.remove(game);
+	}
+	
+	public boolean isQueued(SpleefPlayer player) {
+		return entries.containsKey(player);
+	}
+	
+	/**
+	 * Gets the game in which queue the player is waiting
+	 * 
+	 * @return The game or null if the player is not queued
+	 */
+	public Game getQueuedGame(SpleefPlayer player) {
+		QueueEntry entry = entries.get(player);
+		return entry != null ? entry.game : null;
+	}
+	
+	/**
+	 * Gets the amount of players waiting for any arena of
+	 * the group the given game belongs to
+	 */
+	public int getQueueSize(Game game) {
+		Set<SpleefPlayer> queue = groupQueues.get(getGroup(game));
+		return queue != null ? queue.size() : 0;
+	}
+	
+	@Override
+	public void run() {
+		if (groupQueues.isEmpty()) {
+			return;
+		}
+		
+		long tick = heavySpleef.getTickEngine().getCurrentTick();
+		Map<Object, List<Game>> arenas = Maps.newHashMap();
+		for (Game game : heavySpleef.getGameManager().getGames()) {
+			Object group = getGroup(game);
+			if (!groupQueues.containsKey(group) || !isAcceptingPlayers(game) || isMarkedFull(game, tick)) {
+				continue;
+			}
+			
+			List<Game> groupArenas = arenas.get(group);
+			if (groupArenas == null) {
+				groupArenas = Lists.newArrayList();
+				arenas.put(group, groupArenas);
+			}
+			
+			groupArenas.add(game);
+		}
+		
+		int attempts = 0;
+		
+		for (Map.Entry<Object, List<Game>> groupEntry : arenas.entrySet()) {
+			Set<SpleefPlayer> queue = groupQueues.get(groupEntry.getKey());
+			if (queue == null) {
+				continue;
+			}
+			
+			List<Game> candidates = groupEntry.getValue();
+			int[] loads = new int[candidates.size()];
+			for (int i = 0; i < loads.length; i++) {
+				loads[i] = candidates.get(i).getPlayers().size();
+			}
+			
+			//Copy the queue as assigned players are removed from it
+			playerLoop: for (SpleefPlayer player : Lists.newArrayList(queue)) {
+				if (attempts >= MAX_ATTEMPTS_PER_TICK) {
+					return;
+				}
+				
+				QueueEntry entry = entries.get(player);
+				if (entry == null || !player.isOnline()) {
+					continue;
+				}
+				
+				if (getLeastLoaded(loads) < 0) {
+					//Every arena of this group is full
+					break;
+				}
+				
+				Game source = entry.game;
+				attempts++;
+				if (!flush(player, source)) {
+					continue;
+				}
+				
+				while (true) {
+					int index = getLeastLoaded(loads);
+					if (index < 0) {
+						//Every remaining arena denied temporarily, the player keeps his place in the queue
+						break playerLoop;
+					}
+					
+					Game target = candidates.get(index);
+					AssignResult result = assign(player, source, target);
+					if (result == AssignResult.ARENA_FULL) {
+						fullArenas.put(target, new FullMark(target.getPlayers().size(), tick));
+						loads[index] = ARENA_FULL;
+						continue;
+					} else if (result == AssignResult.JOINED) {
+						loads[index]++;
+					}
+					
+					break;
+				}
+			}
+		}
+	}
+	
+	private static int getLeastLoaded(int[] loads) {
+		int index = -1;
+		int lowest = ARENA_FULL;
+		
+		for (int i = 0; i < loads.length; i++) {
+			if (loads[i] < lowest) {
+				lowest = loads[i];
+				index = i;
+			}
+		}
+		
+		return index;
+	}
+	
+	private boolean isMarkedFull(Game game, long tick) {
+		FullMark mark = fullArenas.get(game);
+		if (mark == null) {
+			return false;
+		}
+		
+		//Retry once a player left or after a while as the deny may have been specific to a player
+		if (mark.playerCount != game.getPlayers().size() || tick - mark.tick >= FULL_RETRY_TICKS) {
+			fullArenas.remove(game);
+			return false;
+		}
+		
+		return true;
+	}
+	
+	private static boolean isAcceptingPlayers(Game game) {
+		GameState state = game.getGameState();
+		if (state == GameState.WAITING || state == GameState.LOBBY) {
+			return true;
+		}
+		
+		return (state == GameState.STARTING || state == GameState.WARMUP) 
+				&& game.getBooleanProperty(GameProperty.JOIN_ON_COUNTDOWN);
+	}
+	
+	/* The player stays queued until the join has been committed so denies do not change the queue order */
+	private boolean flush(SpleefPlayer player, Game source) {
+		PlayerQueueFlushEvent flushEvent = new PlayerQueueFlushEvent(source, player);
+		source.getEventBus().callEvent(flushEvent);
+		
+		return flushEvent.getResult() == PlayerQueueFlushEvent.FlushResult.ALLOW;
+	}
+	
+	private AssignResult assign(SpleefPlayer player, Game source, Game target) {
+		PlayerPreJoinGameEvent joinEvent = new PlayerPreJoinGameEvent(target, player);
+		target.getEventBus().callEvent(joinEvent);
+		
+		if (joinEvent.getJoinResult() == JoinResult.TEMPORARY_DENY) {
+			return AssignResult.ARENA_FULL;
+		}
+		
+		//Permanently denied players leave the queue as well, join sends them the deny message
+		source.removeQueued(player);
+		unindex(player, source);
+		JoinResult joinResult = target.join(player, joinEvent);
+		
+		return joinResult == JoinResult.ALLOW ? AssignResult.JOINED : AssignResult.REMOVED;
+	}
+	
+	private enum AssignResult {
+		
+		JOINED,
+		ARENA_FULL,
+		REMOVED;
+		
+	}
+	
+	private static class FullMark {
+		
+		private final int playerCount;
+		private final long tick;
+		
+		public FullMark(int playerCount, long tick) {
+			this.playerCount = playerCount;
+			this.tick = tick;
+		}
+		
+	}
+	
+	private static class QueueEntry {
+		
+		private final Game game;
+		private final Object group;
+		
+		public QueueEntry(Game game, Object group) {
+			this.game = game;
+			this.group = group;
+		}
+		
+	}
+	
+}
@@ -17,7 +17,8 @@
  */
 package de.xaniox.heavyspleef.core.player;
 
-import com.google.common.base.Predicate;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import de.xaniox.heavyspleef.core.HeavySpleef;
 import org.bukkit.Bukkit;
@@ -30,6 +31,8 @@ import org.bukkit.event.player.PlayerKickEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
 import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -37,71 +40,63 @@ public class PlayerManager implements Listener {
 	
 	private final HeavySpleef heavySpleef;
 	private final Set<SpleefPlayer> onlineSpleefPlayers;
+	private final Map<UUID, SpleefPlayer> uuidIndex;
+	private final Map<String, SpleefPlayer> nameIndex;
+	/* Weak keys are compared by identity */
+	private final Map<Player, SpleefPlayer> bukkitPlayerIndex;
 	
 	public PlayerManager(HeavySpleef heavySpleef) {
 		this.onlineSpleefPlayers = Sets.newLinkedHashSet();
+		this.uuidIndex = Maps.newConcurrentMap();
+		this.nameIndex = Maps.newConcurrentMap();
+		this.bukkitPlayerIndex = new MapMaker().weakKeys().makeMap();
 		this.heavySpleef = heavySpleef;
 		
 		Bukkit.getPluginManager().registerEvents(this, heavySpleef.getPlugin());
 		
 		for (Player player : Bukkit.getOnlinePlayers()) {
-			SpleefPlayer spleefPlayer = new SpleefPlayer(player, heavySpleef);
-			onlineSpleefPlayers.add(spleefPlayer);
+			addPlayer(player);
 		}
 	}
 	
-	public SpleefPlayer getSpleefPlayer(final Player bukkitPlayer) {
-		return getUniquePlayer(new Predicate<SpleefPlayer>() {
-
-			@Override
-			public boolean apply(SpleefPlayer input) {
-				return input.getName().equalsIgnoreCase(bukkitPlayer.getName());
-			}
-		});
-	}
-	
-	public SpleefPlayer getSpleefPlayer(final String name) {
-		return getUniquePlayer(new Predicate<SpleefPlayer>() {
-
-			@Override
-			public boolean apply(SpleefPlayer input) {
-				return input.getName().equalsIgnoreCase(name);
-			}
-		});
-	}
-	
-	public SpleefPlayer getSpleefPlayer(final UUID uuid) {
-		return getUniquePlayer(new Predicate<SpleefPlayer>() {
-
-			@Override
-			public boolean apply(SpleefPlayer input) {
-				return input.getUniqueId().equals(uuid);
-			}
-		});
+	public SpleefPlayer getSpleefPlayer(Player bukkitPlayer) {
+		SpleefPlayer player = bukkitPlayerIndex.get(bukkitPlayer);
+		if (player == null) {
+			//Bukkit may have handed out a new player instance
+			player = uuidIndex.get(bukkitPlayer.getUniqueId());
+		}
+		
+		return player;
 	}
 	
-	private SpleefPlayer getUniquePlayer(Predicate<SpleefPlayer> predicate) {
-		for (SpleefPlayer player : onlineSpleefPlayers) {
-			if (!predicate.apply(player)) {
-				continue;
-			}
-			
-			return player;
+	public SpleefPlayer getSpleefPlayer(String name) {
+		if (name == null) {
+			return null;
 		}
 		
-		return null;
+		return nameIndex.get(name.toLowerCase(Locale.ENGLISH));
+	}
+	
+	public SpleefPlayer getSpleefPlayer(UUID uuid) {
+		return uuidIndex.get(uuid);
 	}
 	
 	public Set<SpleefPlayer> getSpleefPlayers() {
 		return Collections.unmodifiableSet(onlineSpleefPlayers);
 	}
 	
-	@EventHandler
-	public void onPlayerJoin(PlayerJoinEvent e) {
-		Player player = e.getPlayer();
-		
+	private void addPlayer(Player player) {
 		SpleefPlayer spleefPlayer = new SpleefPlayer(player, heavySpleef);
+		
 		onlineSpleefPlayers.add(spleefPlayer);
+		uuidIndex.put(spleefPlayer.getUniqueId(), spleefPlayer);
+		nameIndex.put(player.getName().toLowerCase(Locale.ENGLISH), spleefPlayer);
+		bukkitPlayerIndex.put(player, spleefPlayer);
+	}
+	
+	@EventHandler
+	public void onPlayerJoin(PlayerJoinEvent e) {
+		addPlayer(e.getPlayer());
 	}
 	
 	@EventHandler(priority = EventPriority.MONITOR)
@@ -120,6 +115,9 @@ public class PlayerManager implements Listener {
 		if (spleefPlayer != null) {
 			spleefPlayer.setOnline(false);
 			onlineSpleefPlayers.remove(spleefPlayer);
+			uuidIndex.remove(spleefPlayer.getUniqueId());
+			nameIndex.remove(player.getName().toLowerCase(Locale.ENGLISH), spleefPlayer);
+			bukkitPlayerIndex.remove(player);
 		}
 	}
 	
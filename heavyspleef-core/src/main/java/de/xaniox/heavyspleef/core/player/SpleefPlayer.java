@@ -44,6 +44,7 @@ public class SpleefPlayer implements CommandSender {
 	/* Only keep a weak reference to avoid memory leaks.
 	 * Reference should be actually hold by Bukkit itself */
 	private WeakReference<Player> bukkitPlayerRef;
+	private final UUID uniqueId;
 	private String name;
 	private boolean online;
 	private final HeavySpleef heavySpleef;
@@ -55,6 +56,7 @@ public class SpleefPlayer implements CommandSender {
 		this.online = bukkitPlayer.isOnline();
 		this.playerStates = Maps.newHashMap();
 		this.name = bukkitPlayer.getName();
+		this.uniqueId = bukkitPlayer.getUniqueId();
 		this.heavySpleef = heavySpleef;
 	}
 	
@@ -80,8 +82,8 @@ public class SpleefPlayer implements CommandSender {
 	}
 	
 	public UUID getUniqueId() {
-		validateOnline();
-		return getBukkitPlayer().getUniqueId();
+		//The unique id never changes, so this is safe to use after the player quit
+		return uniqueId;
 	}
 	
 	@Override
@@ -26,7 +26,6 @@ import de.xaniox.heavyspleef.core.i18n.I18NManager;
 import de.xaniox.heavyspleef.core.i18n.Messages;
 import de.xaniox.heavyspleef.core.persistence.AsyncReadWriteHandler;
 import de.xaniox.heavyspleef.core.player.SpleefPlayer;
-import org.bukkit.block.Block;
 
 import java.text.DecimalFormat;
 import java.util.Map;
@@ -164,11 +163,21 @@ public class StatisticRecorder implements SpleefListener {
 			}
 		}
 		
-		AsyncReadWriteHandler databaseHandler = heavySpleef.getDatabaseHandler();
-		databaseHandler.saveStatistics(loadedStatistics.values(), null);
+		StatisticWriteQueue writeQueue = heavySpleef.getStatisticWriteQueue();
+		for (Statistic statistic : loadedStatistics.values()) {
+			writeQueue.markDirty(statistic);
+		}
+		
+		writeQueue.flush();
 		loadedStatistics = null;
 	}
 	
+	@Subscribe
+	public void onGameEnd(GameEndEvent event) {
+		//Write everything recorded during the game in one batch
+		heavySpleef.getStatisticWriteQueue().flush();
+	}
+	
 	@Subscribe
 	public void onPlayerLeave(PlayerLeaveGameEvent event) {
 		Game game = event.getGame();
@@ -185,9 +194,9 @@ public class StatisticRecorder implements SpleefListener {
 			
 			Statistic playerStatistic = loadedStatistics.get(player.getName());
 			
-			Set<Block> blocksBroken = game.getBlocksBroken().get(player);
-			if (blocksBroken != null) {
-				StatisticAction addBlocksBrokenAction = new IncrementingStatisticAction(EnumStatisticAction.BLOCKS_BROKEN, blocksBroken.size());
+			int blocksBroken = game.getBlockOwners().getBrokenCount(player);
+			if (blocksBroken > 0) {
+				StatisticAction addBlocksBrokenAction = new IncrementingStatisticAction(EnumStatisticAction.BLOCKS_BROKEN, blocksBroken);
 				addBlocksBrokenAction.executeAction(playerStatistic, false);
 			}
 			
@@ -221,8 +230,7 @@ public class StatisticRecorder implements SpleefListener {
 			executeAction(statistic);
 			
 			if (save) {
-				AsyncReadWriteHandler databaseHandler = heavySpleef.getDatabaseHandler();
-				databaseHandler.saveStatistic(statistic, null);
+				heavySpleef.getStatisticWriteQueue().markDirty(statistic);
 			}
 		}
 		
@@ -0,0 +1,195 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.core.stats;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.ListenableFuture;
+import de.xaniox.heavyspleef.core.HeavySpleef;
+import de.xaniox.heavyspleef.core.TickEngine.TickHandle;
+import de.xaniox.heavyspleef.core.persistence.AsyncReadWriteHandler;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Collects changed statistics and writes them to the database in one
+ * batch, either periodically or when explicitly flushed (e.g. on game end).
+ * Several changes of the same player in between two flushes are coalesced
+ * into a single write.
+ */
+public class StatisticWriteQueue implements Runnable {
+	
+	private final HeavySpleef heavySpleef;
+	private final Map<UUID, Statistic> dirty;
+	private TickHandle handle;
+	
+	/* Metrics, updated when a flush completes */
+	private final AtomicLong flushCount;
+	private final AtomicLong failedFlushCount;
+	private final AtomicLong flushedStatistics;
+	private final AtomicLong totalFlushNanos;
+	private volatile long lastFlushNanos;
+	private volatile long maxFlushNanos;
+	private volatile int lastBatchSize;
+	private volatile int maxBatchSize;
+	
+	public StatisticWriteQueue(HeavySpleef heavySpleef) {
+		this.heavySpleef = heavySpleef;
+		this.dirty = Maps.newLinkedHashMap();
+		this.flushCount = new AtomicLong();
+		this.failedFlushCount = new AtomicLong();
+		this.flushedStatistics = new AtomicLong();
+		this.totalFlushNanos = new AtomicLong();
+	}
+	
+	public void start(long intervalTicks) {
+		stop();
+		handle = heavySpleef.getTickEngine().register(this, intervalTicks, intervalTicks, false);
+	}
+	
+	public void stop() {
+		if (handle != null) {
+			handle.cancel();
+			handle = null;
+		}
+	}
+	
+	public synchronized void markDirty(Statistic statistic) {
+		dirty.put(statistic.getUniqueIdentifier(), statistic);
+	}
+	
+	public synchronized int getPendingCount() {
+		return dirty.size();
+	}
+	
+	@Override
+	public void run() {
+		flush();
+	}
+	
+	/**
+	 * Submits all changed statistics to the database handler
+	 * 
+	 * @return The future of the write or null if nothing had to be written
+	 */
+	public ListenableFuture<?> flush() {
+		final List<Statistic> batch;
+		
+		synchronized (this) {
+			if (dirty.isEmpty()) {
+				return null;
+			}
+			
+			batch = Lists.newArrayList(dirty.values());
+			dirty.clear();
+		}
+		
+		final long startedAt = System.nanoTime();
+		AsyncReadWriteHandler databaseHandler = heavySpleef.getDatabaseHandler();
+		
+		return databaseHandler.saveStatistics(batch, new FutureCallback<Void>() {
+			
+			@Override
+			public void onSuccess(Void result) {
+				recordFlush(batch.size(), System.nanoTime() - startedAt);
+			}
+			
+			@Override
+			public void onFailure(Throwable t) {
+				failedFlushCount.incrementAndGet();
+				heavySpleef.getLogger().log(Level.SEVERE, "Could not write " + batch.size() + " statistics to the database, retrying on next flush: ", t);
+				
+				requeue(batch);
+			}
+		});
+	}
+	
+	private synchronized void requeue(List<Statistic> batch) {
+		for (Statistic statistic : batch) {
+			UUID uuid = statistic.getUniqueIdentifier();
+			
+			//Newer changes have been marked in the meantime
+			if (!dirty.containsKey(uuid)) {
+				dirty.put(uuid, statistic);
+			}
+		}
+	}
+	
+	private void recordFlush(int batchSize, long nanos) {
+		flushCount.incrementAndGet();
+		flushedStatistics.addAndGet(batchSize);
+		totalFlushNanos.addAndGet(nanos);
+		
+		lastFlushNanos = nanos;
+		lastBatchSize = batchSize;
+		
+		if (nanos > maxFlushNanos) {
+			maxFlushNanos = nanos;
+		}
+		
+		if (batchSize > maxBatchSize) {
+			maxBatchSize = batchSize;
+		}
+	}
+	
+	public long getFlushCount() {
+		return flushCount.get();
+	}
+	
+	public long getFailedFlushCount() {
+		return failedFlushCount.get();
+	}
+	
+	public long getFlushedStatistics() {
+		return flushedStatistics.get();
+	}
+	
+	public int getLastBatchSize() {
+		return lastBatchSize;
+	}
+	
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+	
+	public double getAverageBatchSize() {
+		long flushes = flushCount.get();
+		return flushes == 0 ? 0 : (double) flushedStatistics.get() / flushes;
+	}
+	
+	/* Flush latencies are measured from submitting the batch until its completion */
+	public long getLastFlushLatency(TimeUnit unit) {
+		return unit.convert(lastFlushNanos, TimeUnit.NANOSECONDS);
+	}
+	
+	public long getMaxFlushLatency(TimeUnit unit) {
+		return unit.convert(maxFlushNanos, TimeUnit.NANOSECONDS);
+	}
+	
+	public long getAverageFlushLatency(TimeUnit unit) {
+		long flushes = flushCount.get();
+		return flushes == 0 ? 0 : unit.convert(totalFlushNanos.get() / flushes, TimeUnit.NANOSECONDS);
+	}
+	
+}
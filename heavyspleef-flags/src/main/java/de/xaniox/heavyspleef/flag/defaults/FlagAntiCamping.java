@@ -21,7 +21,9 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.sk89q.worldedit.regions.Region;
+import de.xaniox.heavyspleef.core.GameTickable;
 import de.xaniox.heavyspleef.core.HeavySpleef;
+import de.xaniox.heavyspleef.core.TickEngine.TickHandle;
 import de.xaniox.heavyspleef.core.config.ConfigType;
 import de.xaniox.heavyspleef.core.config.DefaultConfig;
 import de.xaniox.heavyspleef.core.config.FlagSection;
@@ -31,7 +33,6 @@ import de.xaniox.heavyspleef.core.flag.Flag;
 import de.xaniox.heavyspleef.core.flag.FlagInit;
 import de.xaniox.heavyspleef.core.floor.Floor;
 import de.xaniox.heavyspleef.core.game.Game;
-import de.xaniox.heavyspleef.core.game.GameManager;
 import de.xaniox.heavyspleef.core.game.GameState;
 import de.xaniox.heavyspleef.core.game.QuitCause;
 import de.xaniox.heavyspleef.core.i18n.I18N;
@@ -39,14 +40,11 @@ import de.xaniox.heavyspleef.core.i18n.I18NManager;
 import de.xaniox.heavyspleef.core.i18n.Messages;
 import de.xaniox.heavyspleef.core.player.SpleefPlayer;
 import de.xaniox.heavyspleef.flag.presets.BaseFlag;
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.player.PlayerEvent;
 import org.bukkit.event.player.PlayerKickEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
-import org.bukkit.scheduler.BukkitScheduler;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.*;
 
@@ -55,23 +53,21 @@ public class FlagAntiCamping extends BaseFlag {
 
 	private static final long ONE_SECOND_INTERVAL = 20L;
 	private static AntiCampingTask task;
-	private static BukkitTask bukkitTask;
+	private static TickHandle taskHandle;
 	
 	@FlagInit
 	public static void initTask(HeavySpleef heavySpleef) {
-		BukkitScheduler scheduler = Bukkit.getScheduler();
-		
 		task = new AntiCampingTask(heavySpleef);
-		bukkitTask = scheduler.runTaskTimer(heavySpleef.getPlugin(), task, ONE_SECOND_INTERVAL, ONE_SECOND_INTERVAL);
+		taskHandle = heavySpleef.getTickEngine().register(task, ONE_SECOND_INTERVAL, false);
 	}
 	
 	public static void stopTask(HeavySpleef heavySpleef) {
-		if (bukkitTask == null) {
+		if (taskHandle == null) {
 			return;
 		}
 		
-		bukkitTask.cancel();
-		bukkitTask = null;
+		taskHandle.cancel();
+		taskHandle = null;
 		task = null;
 	}
 	
@@ -95,70 +91,61 @@ public class FlagAntiCamping extends BaseFlag {
 		task.resetPlayerData(player);
 	}
 	
-	private static class AntiCampingTask implements Runnable {
+	private static class AntiCampingTask implements GameTickable {
 	
 		private static final Comparator<Floor> COMPARATOR = new FloorComparator();
 		private final HeavySpleef heavySpleef;
 		private final I18N i18n = I18NManager.getGlobal();
-		private GameManager gameManager;
 		private DefaultConfig config;
 		private Map<SpleefPlayer, Location> recentLocations = Maps.newHashMap();
 		private Map<SpleefPlayer, Integer> secondsCamping = Maps.newHashMap();
 		
 		public AntiCampingTask(HeavySpleef heavySpleef) {
 			this.heavySpleef = heavySpleef;
-			this.gameManager = heavySpleef.getGameManager();
-			
 			config = heavySpleef.getConfiguration(ConfigType.DEFAULT_CONFIG);
 		}
 		
 		@Override
-		public void run() {
+		public void tick(Game game) {
+			if (game.getGameState() != GameState.INGAME || !game.isFlagPresent(FlagAntiCamping.class)) {
+				return;
+			}
+			
 			final FlagSection flagSection = config.getFlagSection();
 			final int anticampingWarn = flagSection.getAnticampingWarn();
 			final int anticampingTeleport = flagSection.getAnticampingTeleport();
 			final boolean warn = flagSection.isAnticampingDoWarn();
 			
-			for (Game game : gameManager.getGames()) {
-				if (game.getGameState() != GameState.INGAME) {
-					continue;
-				}
-				
-				if (!game.isFlagPresent(FlagAntiCamping.class)) {
-					continue;
-				}
-						
-				ImmutableList<SpleefPlayer> ingame = ImmutableList.copyOf(game.getPlayers());
-				for (SpleefPlayer player : ingame) {
-					if (recentLocations.containsKey(player)) {
-						Location recent = recentLocations.get(player);
-						Location now = player.getBukkitPlayer().getLocation();
+			ImmutableList<SpleefPlayer> ingame = ImmutableList.copyOf(game.getPlayers());
+			for (SpleefPlayer player : ingame) {
+				if (recentLocations.containsKey(player)) {
+					Location recent = recentLocations.get(player);
+					Location now = player.getBukkitPlayer().getLocation();
+					
+					double dx = Math.abs(now.getX() - recent.getX());
+					double dz = Math.abs(now.getZ() - recent.getZ());
+					
+					if ((dx < 1D && dz < 1D) || player.getBukkitPlayer().isSneaking()) {
+						int seconds = secondsCamping.containsKey(player) ? secondsCamping.get(player) + 1 : 1;
 						
-						double dx = Math.abs(now.getX() - recent.getX());
-						double dz = Math.abs(now.getZ() - recent.getZ());
+						if (seconds == anticampingWarn && warn) {
+							player.sendMessage(i18n.getString(Messages.Player.ANTICAMPING_WARN));
+						}
 						
-						if ((dx < 1D && dz < 1D) || player.getBukkitPlayer().isSneaking()) {
-							int seconds = secondsCamping.containsKey(player) ? secondsCamping.get(player) + 1 : 1;
-							
-							if (seconds == anticampingWarn && warn) {
-								player.sendMessage(i18n.getString(Messages.Player.ANTICAMPING_WARN));
-							}
-							
-							if (seconds == anticampingTeleport) {
-								if (teleport(player, game)) {
-									player.sendMessage(i18n.getString(Messages.Player.ANTICAMPING_TELEPORT));
-									secondsCamping.remove(player);
-								}
-							} else {
-								secondsCamping.put(player, seconds);
+						if (seconds == anticampingTeleport) {
+							if (teleport(player, game)) {
+								player.sendMessage(i18n.getString(Messages.Player.ANTICAMPING_TELEPORT));
+								secondsCamping.remove(player);
 							}
 						} else {
-							secondsCamping.remove(player);
+							secondsCamping.put(player, seconds);
 						}
+					} else {
+						secondsCamping.remove(player);
 					}
-					
-					recentLocations.put(player, player.getBukkitPlayer().getLocation());
 				}
+				
+				recentLocations.put(player, player.getBukkitPlayer().getLocation());
 			}
 		}
 		
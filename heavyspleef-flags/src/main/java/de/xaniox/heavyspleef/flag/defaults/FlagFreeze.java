@@ -20,7 +20,7 @@ package de.xaniox.heavyspleef.flag.defaults;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import de.xaniox.heavyspleef.core.HeavySpleef;
-import de.xaniox.heavyspleef.core.SimpleBasicTask;
+import de.xaniox.heavyspleef.core.TickEngineTask;
 import de.xaniox.heavyspleef.core.event.*;
 import de.xaniox.heavyspleef.core.flag.Flag;
 import de.xaniox.heavyspleef.core.flag.FlagInit;
@@ -135,13 +135,13 @@ public class FlagFreeze extends BaseFlag {
 		bukkitPlayer.removePotionEffect(PotionEffectType.JUMP);
 	}
 	
-	private static class MovementCheckTask extends SimpleBasicTask {
+	private static class MovementCheckTask extends TickEngineTask {
 
 		private Map<SpleefPlayer, Location> freezeLocations;
 		private List<WeakReference<SpleefPlayer>> frozenPlayers;
 		
 		public MovementCheckTask(HeavySpleef heavySpleef) {
-			super(heavySpleef.getPlugin(), TaskType.SYNC_REPEATING_TASK, 0L, 8L);
+			super(heavySpleef.getTickEngine(), 0L, 8L, true);
 			
 			this.freezeLocations = Maps.newHashMap();
 			this.frozenPlayers = Lists.newArrayList();
@@ -178,6 +178,7 @@ public class FlagFreeze extends BaseFlag {
 				
 				if (player == null) {
 					iterator.remove();
+					continue;
 				}
 				
 				Location now = player.getBukkitPlayer().getLocation();
@@ -17,16 +17,13 @@
  */
 package de.xaniox.heavyspleef.flag.defaults;
 
-import com.sk89q.worldedit.EditSession;
-import de.xaniox.heavyspleef.core.SimpleBasicTask;
+import com.google.common.util.concurrent.MoreExecutors;
+import de.xaniox.heavyspleef.core.TickEngineTask;
 import de.xaniox.heavyspleef.core.event.GameEndEvent;
 import de.xaniox.heavyspleef.core.event.GameStartEvent;
 import de.xaniox.heavyspleef.core.event.Subscribe;
 import de.xaniox.heavyspleef.core.flag.Flag;
 import de.xaniox.heavyspleef.core.flag.ValidationException;
-import de.xaniox.heavyspleef.core.floor.Floor;
-import de.xaniox.heavyspleef.core.floor.FloorRegenerator;
-import de.xaniox.heavyspleef.core.floor.FloorRegeneratorFactory;
 import de.xaniox.heavyspleef.core.floor.RegenerationCause;
 import de.xaniox.heavyspleef.core.game.Game;
 import de.xaniox.heavyspleef.core.i18n.Messages;
@@ -73,27 +70,26 @@ public class FlagRegen extends IntegerFlag {
 		}
 	}
 	
-	private class RegenerationTask extends SimpleBasicTask {
+	private class RegenerationTask extends TickEngineTask {
 
 		private Game game;
 		
 		public RegenerationTask(Game game, int interval) {
-			super(getHeavySpleef().getPlugin(), TaskType.SYNC_REPEATING_TASK, interval * 20L, interval * 20L);
+			super(getHeavySpleef().getTickEngine(), game, interval * 20L, interval * 20L, false);
 			
 			this.game = game;
 		}
 
 		@Override
 		public void run() {
-			EditSession session = game.newEditSession();
-			FloorRegeneratorFactory regeneratorFactory = game.getFloorRegeneratorFactory();
-			FloorRegenerator regenerator = regeneratorFactory.retrieveRegeneratorInstance();
-
-			for (Floor floor : game.getFloors()) {
-				regenerator.regenerate(floor, session, RegenerationCause.OTHER);
-			}
-			
-			game.broadcast(getI18N().getString(Messages.Broadcast.FLOORS_REGENERATED));
+			//Floors may be restored over several ticks, so broadcast once done
+			game.regenerateFloors(RegenerationCause.OTHER).addListener(new Runnable() {
+				
+				@Override
+				public void run() {
+					game.broadcast(getI18N().getString(Messages.Broadcast.FLOORS_REGENERATED));
+				}
+			}, MoreExecutors.sameThreadExecutor());
 		}
 		
 	}
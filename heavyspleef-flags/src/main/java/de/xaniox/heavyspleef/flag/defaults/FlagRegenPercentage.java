@@ -17,28 +17,19 @@
  */
 package de.xaniox.heavyspleef.flag.defaults;
 
-import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-import com.sk89q.worldedit.BlockVector;
+import com.google.common.collect.MapMaker;
 import com.sk89q.worldedit.EditSession;
-import com.sk89q.worldedit.WorldEditException;
-import com.sk89q.worldedit.blocks.BaseBlock;
-import com.sk89q.worldedit.extent.clipboard.Clipboard;
-import com.sk89q.worldedit.regions.Region;
-import com.sk89q.worldedit.world.World;
 import de.xaniox.heavyspleef.core.flag.Flag;
 import de.xaniox.heavyspleef.core.flag.Inject;
-import de.xaniox.heavyspleef.core.floor.Floor;
-import de.xaniox.heavyspleef.core.floor.FloorRegenerator;
-import de.xaniox.heavyspleef.core.floor.FloorRegeneratorFactory;
-import de.xaniox.heavyspleef.core.floor.RegenerationCause;
+import de.xaniox.heavyspleef.core.floor.*;
 import de.xaniox.heavyspleef.core.game.Game;
 import de.xaniox.heavyspleef.flag.presets.IntegerFlag;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
 
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 
 @Flag(name = "regen-percentage")
@@ -76,65 +67,87 @@ public class FlagRegenPercentage extends IntegerFlag {
 		}
 	}
 	
-	private class ComponentFloorRegenerator implements FloorRegenerator {
+	private class ComponentFloorRegenerator implements PlanningFloorRegenerator {
 
-		private static final int AIR_ID = 0;
-		private Random random = new Random();
+		private final ConcurrentMap<Floor, FloorBlocks> floorBlocksCache = new MapMaker().weakKeys().makeMap();
+		private final Random random = new Random();
 		
 		@Override
 		public void regenerate(Floor floor, EditSession session, RegenerationCause cause) {
-			if (cause == RegenerationCause.COUNTDOWN) {
+			RegenerationPlan plan = plan(floor, cause);
+			World world = plan != null ? Bukkit.getWorld(plan.getWorldName()) : null;
+			
+			if (world == null) {
+				getHeavySpleef().getLogger().log(Level.SEVERE, "Failed to regenerate floor " + floor.getName() + " for game " + game.getName()
+						+ ": World is not loaded");
 				return;
 			}
 			
-			Region region = floor.getRegion();
+			plan.applyTo(world);
+		}
+		
+		@Override
+		public RegenerationPlan plan(Floor floor, RegenerationCause cause) {
+			FloorBlocks floorBlocks = floorBlocksCache.get(floor);
+			if (floorBlocks == null) {
+				RegenerationPlan fullPlan = RegenerationPlan.ofFloorBlocks(floor);
+				if (fullPlan == null) {
+					return null;
+				}
+				
+				floorBlocks = new FloorBlocks(fullPlan);
+				floorBlocksCache.put(floor, floorBlocks);
+			}
 			
-			double percentage = getValue() / 100D;
-			int area = region.getArea();
+			if (cause == RegenerationCause.COUNTDOWN) {
+				return floorBlocks.select(0, random);
+			}
 			
+			double percentage = getValue() / 100D;
+			int area = floor.getRegion().getArea();
 			int notRegenerating = area - (int) (percentage * area);
 			
-			Iterator<BlockVector> iterator = region.iterator();
-			List<BlockVector> vectors = Lists.newArrayList();
-			Map<BlockVector, BaseBlock> clipboardBlockCache = Maps.newHashMap();
-			Clipboard clipboard = floor.getClipboard();
+			return floorBlocks.select(Math.max(floorBlocks.size() - notRegenerating, 0), random);
+		}
+		
+	}
+	
+	/* Non-air blocks of a floor, of which a random subset is selected on every regeneration */
+	private static class FloorBlocks {
+		
+		private final RegenerationPlan fullPlan;
+		private final int[] indices;
+		
+		public FloorBlocks(RegenerationPlan fullPlan) {
+			this.fullPlan = fullPlan;
+			this.indices = new int[fullPlan.size()];
 			
-			while (iterator.hasNext()) {
-				BlockVector vector = iterator.next();
-				BaseBlock block = clipboard.getLazyBlock(vector);
-				clipboardBlockCache.put(vector, block);
-				
-				if (block.getType() == AIR_ID) {
-					continue;
-				}
-				
-				vectors.add(vector);
+			for (int i = 0; i < indices.length; i++) {
+				indices[i] = i;
 			}
+		}
+		
+		public int size() {
+			return indices.length;
+		}
+		
+		public synchronized RegenerationPlan select(int count, Random random) {
+			RegenerationPlan.Builder builder = new RegenerationPlan.Builder(fullPlan.getWorldName());
 			
-			for (int i = 0; i < notRegenerating; i++) {
-				int rnd = random.nextInt(vectors.size());
-				vectors.remove(rnd);
+			//Partial Fisher-Yates shuffle: after i swaps the first i indices
+			//are a uniformly chosen subset, regardless of their previous order
+			for (int i = 0; i < count; i++) {
+				int swapIndex = i + random.nextInt(indices.length - i);
+				int index = indices[swapIndex];
+				indices[swapIndex] = indices[i];
+				indices[i] = index;
+				
+				builder.add(fullPlan.getPosition(index), fullPlan.getState(index));
 			}
 			
-			World world = region.getWorld();
-			
-			try {
-				//Iterate over all remaining block vectors and regenerate these blocks
-				for (BlockVector regeneratingBlock : vectors) {
-					BaseBlock clipboardBlock = clipboardBlockCache.get(regeneratingBlock);
-					BaseBlock worldBlock = world.getBlock(regeneratingBlock);
-					
-					int id = clipboardBlock.getId();
-					int data = clipboardBlock.getData();
-					
-					worldBlock.setIdAndData(id, data);
-					world.setBlock(regeneratingBlock, worldBlock);
-				}
-			} catch (WorldEditException e) {
-				getHeavySpleef().getLogger().log(Level.SEVERE, "Failed to regenerate floor " + floor.getName() + " for game " + game.getName(), e);
-			}
+			return builder.build();
 		}
 		
 	}
 
-}
\ No newline at end of file
+}
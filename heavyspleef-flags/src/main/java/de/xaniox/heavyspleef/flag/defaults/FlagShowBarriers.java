@@ -28,7 +28,7 @@ import com.sk89q.worldedit.bukkit.BukkitUtil;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.regions.iterator.RegionIterator;
 import de.xaniox.heavyspleef.core.MinecraftVersion;
-import de.xaniox.heavyspleef.core.SimpleBasicTask;
+import de.xaniox.heavyspleef.core.TickEngineTask;
 import de.xaniox.heavyspleef.core.event.GameEndEvent;
 import de.xaniox.heavyspleef.core.event.GameStartEvent;
 import de.xaniox.heavyspleef.core.event.Subscribe;
@@ -82,7 +82,7 @@ public class FlagShowBarriers extends IntegerFlag {
 		}
 	}
 	
-	private class ShowBarriersTask extends SimpleBasicTask {
+	private class ShowBarriersTask extends TickEngineTask {
 		
 		private static final long SPAWN_TIME_TICKS = 40L;
 		
@@ -94,7 +94,7 @@ public class FlagShowBarriers extends IntegerFlag {
 		private int processPerInterval;
 		
 		public ShowBarriersTask() {
-			super(getHeavySpleef().getPlugin(), TaskType.SYNC_REPEATING_TASK, 10L, 10L);
+			super(getHeavySpleef().getTickEngine(), game, 10L, 10L, false);
 			
 			this.spawningBarriers = Lists.newArrayList();
 			
@@ -122,7 +122,7 @@ public class FlagShowBarriers extends IntegerFlag {
 			if (currentTick >= valueTicks) {
 				if (!calculated) {
 					calculateSpawnLocations();
-					processPerInterval = (int) ((spawningBarriers.size() * getTaskArgument(1)) / SPAWN_TIME_TICKS);
+					processPerInterval = (int) ((spawningBarriers.size() * getPeriod()) / SPAWN_TIME_TICKS);
 					calculated = true;
 				}
 				
@@ -140,7 +140,7 @@ public class FlagShowBarriers extends IntegerFlag {
 				}
 			}
 			
-			currentTick += getTaskArgument(1);
+			currentTick += getPeriod();
 		}
 
 		private void calculateSpawnLocations() {
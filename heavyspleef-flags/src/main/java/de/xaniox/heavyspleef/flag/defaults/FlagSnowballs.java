@@ -122,7 +122,7 @@ public class FlagSnowballs extends IntegerFlag {
 		game.addBlockBroken(player, blockHit);
 		
 		blockHit.setType(Material.AIR);
-		if (game.getPropertyValue(GameProperty.PLAY_BLOCK_BREAK)) {
+		if (game.getBooleanProperty(GameProperty.PLAY_BLOCK_BREAK)) {
 			blockHit.getWorld().playEffect(blockHit.getLocation(), Effect.STEP_SOUND, blockHit.getTypeId());
 		}
 	}
@@ -21,7 +21,8 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import de.xaniox.heavyspleef.core.HeavySpleef;
 import de.xaniox.heavyspleef.core.MetadatableItemStack;
-import de.xaniox.heavyspleef.core.SimpleBasicTask;
+import de.xaniox.heavyspleef.core.GameTickable;
+import de.xaniox.heavyspleef.core.TickEngine.TickHandle;
 import de.xaniox.heavyspleef.core.Unregister;
 import de.xaniox.heavyspleef.core.event.PlayerJoinGameEvent;
 import de.xaniox.heavyspleef.core.event.PlayerLeaveGameEvent;
@@ -31,7 +32,6 @@ import de.xaniox.heavyspleef.core.flag.Flag;
 import de.xaniox.heavyspleef.core.flag.FlagInit;
 import de.xaniox.heavyspleef.core.flag.Inject;
 import de.xaniox.heavyspleef.core.game.Game;
-import de.xaniox.heavyspleef.core.game.GameManager;
 import de.xaniox.heavyspleef.core.i18n.Messages;
 import de.xaniox.heavyspleef.core.player.SpleefPlayer;
 import de.xaniox.heavyspleef.flag.presets.BaseFlag;
@@ -63,7 +63,7 @@ public class FlagTrackingSpectate extends BaseFlag {
 	private static final int ITEM_SLOT = 0;
 	private static final int MAX_LINES = 6;
 	
-	private static TrackingTask task;
+	private static TickHandle taskHandle;
 	
 	private @Inject
     Game game;
@@ -76,17 +76,16 @@ public class FlagTrackingSpectate extends BaseFlag {
 	
 	@FlagInit
 	public static void startTrackingTask(HeavySpleef heavySpleef) {
-		task = new TrackingTask(heavySpleef);
-		task.start();
+		taskHandle = heavySpleef.getTickEngine().register(new TrackingTask(), TrackingTask.PERIOD, false);
 	}
 	
 	@Unregister
 	public static void cancelTrackingTask(HeavySpleef heavySpleef) {
-		if (task != null && task.isRunning()) {
-			task.cancel();
+		if (taskHandle != null) {
+			taskHandle.cancel();
 		}
 		
-		task = null;
+		taskHandle = null;
 	}
 	
 	@Override
@@ -295,32 +294,24 @@ public class FlagTrackingSpectate extends BaseFlag {
 		return trackerInventory;
 	}
 	
-	private static class TrackingTask extends SimpleBasicTask {
+	private static class TrackingTask implements GameTickable {
 
-		private GameManager gameManager;
-		
-		public TrackingTask(HeavySpleef heavySpleef) {
-			super(heavySpleef.getPlugin(), TaskType.SYNC_REPEATING_TASK, 20L, 20L);
-			
-			this.gameManager = heavySpleef.getGameManager();
-		}
+		private static final long PERIOD = 20L;
 
 		@Override
-		public void run() {
-			for (Game game : gameManager.getGames()) {
-				if (!game.isFlagPresent(FlagTrackingSpectate.class)) {
-					continue;
-				}
-				
-				FlagTrackingSpectate flag = game.getFlag(FlagTrackingSpectate.class);
-				Map<SpleefPlayer, SpleefPlayer> trackingMap = flag.tracking;
+		public void tick(Game game) {
+			if (!game.isFlagPresent(FlagTrackingSpectate.class)) {
+				return;
+			}
+			
+			FlagTrackingSpectate flag = game.getFlag(FlagTrackingSpectate.class);
+			Map<SpleefPlayer, SpleefPlayer> trackingMap = flag.tracking;
+			
+			for (Entry<SpleefPlayer, SpleefPlayer> entry : trackingMap.entrySet()) {
+				Player tracker = entry.getKey().getBukkitPlayer();
+				Player tracking = entry.getValue().getBukkitPlayer();
 				
-				for (Entry<SpleefPlayer, SpleefPlayer> entry : trackingMap.entrySet()) {
-					Player tracker = entry.getKey().getBukkitPlayer();
-					Player tracking = entry.getValue().getBukkitPlayer();
-					
-					tracker.setCompassTarget(tracking.getLocation());
-				}
+				tracker.setCompassTarget(tracking.getLocation());
 			}
 		}
 		
@@ -101,6 +101,7 @@ public class PersistenceModule extends SimpleModule {
 			schematicDir.mkdirs();
 		}
 		properties.put("schematic.dir", schematicDir);
+		properties.put("schematic.storage", String.valueOf(schematicConn.getOrDefault("storage", "gzip")));
 		
 		DatabaseConnection sqlConn = config.getConnection(SQL_CONNECTION_IDENTIFIER);
 		for (Entry<String, Object> sqlProperty : sqlConn.getProperties().entrySet()) {
@@ -21,6 +21,7 @@ import com.google.common.cache.*;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import de.xaniox.heavyspleef.core.HeavySpleef;
 import de.xaniox.heavyspleef.core.floor.Floor;
 import de.xaniox.heavyspleef.core.game.Game;
@@ -29,6 +30,7 @@ import de.xaniox.heavyspleef.core.stats.Statistic;
 import de.xaniox.heavyspleef.core.uuid.GameProfile;
 import de.xaniox.heavyspleef.core.uuid.UUIDManager;
 import de.xaniox.heavyspleef.persistence.schematic.FloorAccessor;
+import de.xaniox.heavyspleef.persistence.schematic.MappedFloorStore;
 import de.xaniox.heavyspleef.persistence.schematic.SchematicContext;
 import de.xaniox.heavyspleef.persistence.sql.DatabaseUpgrader;
 import de.xaniox.heavyspleef.persistence.sql.SQLDatabaseContext;
@@ -84,6 +86,7 @@ public class CachingReadWriteHandler implements ReadWriteHandler {
 	
 	private final File xmlFolder;
 	private final File schematicFolder;
+	private final boolean mappedFloorStorage;
 	
 	private final Logger logger;
 	private UUIDManager uuidManager;
@@ -92,6 +95,7 @@ public class CachingReadWriteHandler implements ReadWriteHandler {
 	
 	private SQLDatabaseContext sqlContext;
 	private SchematicContext schematicContext;
+	private MappedFloorStore mappedFloorStore;
 	private XMLContext xmlContext;
 	
 	private ReentrantLock rankLock = new ReentrantLock();
@@ -124,12 +128,14 @@ public class CachingReadWriteHandler implements ReadWriteHandler {
 		this.uuidManager = uuidManager != null ? uuidManager : new UUIDManager();
 		this.xmlFolder = (File) properties.get("xml.dir");
 		this.schematicFolder = (File) properties.get("schematic.dir");
+		this.mappedFloorStorage = "mapped".equalsIgnoreCase((String) properties.get("schematic.storage"));
 		
 		GameAccessor gameAccessor = new GameAccessor(heavySpleef);
 		xmlContext = new XMLContext(gameAccessor);
 		
 		FloorAccessor floorAccessor = new FloorAccessor();
 		schematicContext = new SchematicContext(floorAccessor);
+		mappedFloorStore = new MappedFloorStore();
 		
 		boolean statisticsEnabled = (boolean) properties.get("statistic.enabled");
 		if (statisticsEnabled) {
@@ -178,6 +184,11 @@ public class CachingReadWriteHandler implements ReadWriteHandler {
 
 	@Override
 	public void saveGame(Game game) throws IOException {
+		if (game.isTemplateInstance()) {
+			//Template instances are recreated from their template
+			return;
+		}
+		
 		File gameFile = new File(xmlFolder, game.getName() + ".xml");
 		if (!gameFile.exists()) {
 			gameFile.createNewFile();
@@ -206,16 +217,37 @@ public class CachingReadWriteHandler implements ReadWriteHandler {
 			}
 		}
 		
+		writeFloors(gameSchematicFolder, game.getFloors());
+	}
+	
+	private void writeFloors(File gameSchematicFolder, Collection<Floor> floors) throws IOException {
+		File mappedFile = new File(gameSchematicFolder, MappedFloorStore.FILE_NAME);
+		
+		if (mappedFloorStorage) {
+			mappedFloorStore.write(mappedFile, floors);
+			
+			for (File file : gameSchematicFolder.listFiles(FLOOR_SCHEMATIC_FILTER)) {
+				file.delete();
+			}
+			
+			return;
+		}
+		
+		Set<String> floorNames = Sets.newHashSet();
+		for (Floor floor : floors) {
+			floorNames.add(floor.getName());
+		}
+		
 		for (File file : gameSchematicFolder.listFiles(FLOOR_SCHEMATIC_FILTER)) {
 			String floorName = file.getName().substring(2, file.getName().length() - 6);
-			if (game.isFloorPresent(floorName)) {
+			if (floorNames.contains(floorName)) {
 				continue;
 			}
 			
 			file.delete();
 		}
 		
-		for (Floor floor : game.getFloors()) {	
+		for (Floor floor : floors) {	
 			File floorFile = new File(gameSchematicFolder, getFloorFileName(floor));
 			if (!floorFile.exists()) {
 				floorFile.createNewFile();
@@ -223,6 +255,11 @@ public class CachingReadWriteHandler implements ReadWriteHandler {
 			
 			schematicContext.write(floorFile, floor);
 		}
+		
+		if (mappedFile.exists()) {
+			mappedFloorStore.release(mappedFile);
+			mappedFile.delete();
+		}
 	}
 	
 	private String getFloorFileName(Floor floor) {
@@ -259,9 +296,7 @@ public class CachingReadWriteHandler implements ReadWriteHandler {
 		
 		File gameFloorFolder = new File(schematicFolder, game.getName());
 		if (gameFloorFolder.exists()) {
-			for (File floorSchematicFile : gameFloorFolder.listFiles(FLOOR_SCHEMATIC_FILTER)) {
-				Floor floor = schematicContext.read(floorSchematicFile, Floor.class);
-				
+			for (Floor floor : readFloors(gameFloorFolder)) {
 				game.addFloor(floor);
 			}
 		}
@@ -269,6 +304,30 @@ public class CachingReadWriteHandler implements ReadWriteHandler {
 		return game;
 	}
 	
+	private List<Floor> readFloors(File gameFloorFolder) throws IOException {
+		File mappedFile = new File(gameFloorFolder, MappedFloorStore.FILE_NAME);
+		File[] schematicFiles = gameFloorFolder.listFiles(FLOOR_SCHEMATIC_FILTER);
+		boolean readMapped = mappedFile.exists() && (mappedFloorStorage || schematicFiles.length == 0);
+		List<Floor> floors;
+		
+		if (readMapped) {
+			floors = mappedFloorStore.read(mappedFile);
+		} else {
+			floors = Lists.newArrayList();
+			
+			for (File floorSchematicFile : schematicFiles) {
+				floors.add(schematicContext.read(floorSchematicFile, Floor.class));
+			}
+		}
+		
+		if (readMapped != mappedFloorStorage && !floors.isEmpty()) {
+			//The storage mode has been changed, convert the floors to the configured format
+			writeFloors(gameFloorFolder, floors);
+		}
+		
+		return floors;
+	}
+	
 	@Override
 	public List<Game> getGames() throws IOException, DocumentException {
 		List<Game> result = Lists.newArrayList();
@@ -299,6 +358,7 @@ public class CachingReadWriteHandler implements ReadWriteHandler {
 			File newGameSchematicFolder = new File(schematicFolder, to);
 			
 			if (gameSchematicFolder.exists()) {
+				mappedFloorStore.release(new File(gameSchematicFolder, MappedFloorStore.FILE_NAME));
 				gameSchematicFolder.renameTo(newGameSchematicFolder);
 			}
 			
@@ -322,6 +382,17 @@ public class CachingReadWriteHandler implements ReadWriteHandler {
 			}
 		}
 		
+		File mappedFile = new File(floorDir, MappedFloorStore.FILE_NAME);
+		if (mappedFile.exists()) {
+			try {
+				mappedFloorStore.release(mappedFile);
+			} catch (IOException e) {
+				logger.log(Level.WARNING, "Could not release floors of game " + game.getName(), e);
+			}
+			
+			mappedFile.delete();
+		}
+		
 		if (floorDir.listFiles().length == 0) {
 			floorDir.delete();
 		}
@@ -331,9 +402,9 @@ public class CachingReadWriteHandler implements ReadWriteHandler {
 	public void saveStatistics(Iterable<Statistic> iterable) throws SQLException {
 		validateSqlDatabaseSetup();
 		
-		for (Statistic statistic : iterable) {
-			saveStatistic(statistic);
-		}
+		//Written as one batch inside a single transaction
+		List<Statistic> statistics = Lists.newArrayList(iterable);
+		sqlContext.writeObjects(Statistic.class, statistics);
 	}
 
 	@Override
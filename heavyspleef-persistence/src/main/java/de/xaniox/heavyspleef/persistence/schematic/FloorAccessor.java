@@ -22,18 +22,16 @@ import com.google.common.collect.Maps;
 import com.sk89q.jnbt.*;
 import com.sk89q.worldedit.BlockVector;
 import com.sk89q.worldedit.Vector;
-import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.blocks.BaseBlock;
 import com.sk89q.worldedit.bukkit.BukkitUtil;
-import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
 import com.sk89q.worldedit.regions.CuboidRegion;
 import com.sk89q.worldedit.regions.CylinderRegion;
 import com.sk89q.worldedit.regions.Polygonal2DRegion;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.world.World;
+import de.xaniox.heavyspleef.core.floor.CompactFloor;
 import de.xaniox.heavyspleef.core.floor.Floor;
-import de.xaniox.heavyspleef.core.floor.SimpleClipboardFloor;
 import de.xaniox.heavyspleef.persistence.RegionType;
 import org.bukkit.Bukkit;
 
@@ -70,6 +68,10 @@ public class FloorAccessor extends SchematicAccessor<Floor> {
 	private final Lock wl = rwl.writeLock();
 	private final Lock rl = rwl.readLock();
 	
+	static SchematicRegionMetadataCodec<?> getMetadataCodec(Class<? extends Region> regionClass) {
+		return METADATA_CODECS.get(regionClass);
+	}
+	
 	@Override
 	public Class<Floor> getObjectClass() {
 		return Floor.class;
@@ -83,8 +85,10 @@ public class FloorAccessor extends SchematicAccessor<Floor> {
 		try {
 			StringTag nameTag = new StringTag(floor.getName());
 			
-			Clipboard clipboard = floor.getClipboard();
-			Region region = clipboard.getRegion();
+			//Compact floors are written from their block arrays without building a clipboard
+			CompactFloor compactFloor = floor instanceof CompactFloor ? (CompactFloor) floor : null;
+			Clipboard clipboard = compactFloor == null ? floor.getClipboard() : null;
+			Region region = floor.getRegion();
 			
 			World world = region.getWorld();
 			StringTag worldTag = new StringTag(world.getName());
@@ -105,7 +109,7 @@ public class FloorAccessor extends SchematicAccessor<Floor> {
 			
 			CompoundTag boundariesTag = new CompoundTag(boundariesMap);
 			
-			Vector origin = clipboard.getOrigin();
+			Vector origin = compactFloor != null ? compactFloor.getOrigin() : clipboard.getOrigin();
 			
 			// Store the origin of the clipboard (this will always be the minimum point of the region)
 			List<IntTag> originCoordinateList = Lists.newArrayList();
@@ -135,7 +139,9 @@ public class FloorAccessor extends SchematicAccessor<Floor> {
 				for (int y = 0; y < height; y++) {
 					for (int z = 0; z < length; z++) {
 						int index = y * width * length + z * width + x;
-						BaseBlock block = clipboard.getBlock(minPoint.add(new Vector(x, y, z)));
+						BaseBlock block = compactFloor != null 
+								? compactFloor.getBlock(minPoint.getBlockX() + x, minPoint.getBlockY() + y, minPoint.getBlockZ() + z)
+								: clipboard.getBlock(minPoint.add(new Vector(x, y, z)));
 						
 						if (block.getId() > Byte.MAX_VALUE - Byte.MIN_VALUE) {
 							if (addBlocks == null) {
@@ -336,32 +342,25 @@ public class FloorAccessor extends SchematicAccessor<Floor> {
 			Region region = metadataCodec.asRegion(metadataMap);
 			region.setWorld(world);
 			
-			BlockArrayClipboard clipboard = new BlockArrayClipboard(region);
-			clipboard.setOrigin(origin);
-			
-			Vector min = region.getMinimumPoint();
+			short[] states = new short[blocks.length];
+			Map<Integer, CompoundTag> tileEntityStates = Maps.newHashMap();
 			
 			for (int x = 0; x < width; ++x) {
 				for (int y = 0; y < height; ++y) {
 					for (int z = 0; z < length; ++z) {
 						int index = y * width * length + z * width + x;
 						BlockVector pt = new BlockVector(x, y, z);
-						BaseBlock block = new BaseBlock(blocks[index], blockData[index]);
 						
-						if (tileEntitiesMap.containsKey(pt)) {
-							block.setNbtData(new CompoundTag(tileEntitiesMap.get(pt)));
-						}
+						states[index] = (short) (blocks[index] << 4 | blockData[index] & 0x0F);
 						
-						try {
-							clipboard.setBlock(min.add(pt), block);
-						} catch (WorldEditException e) {
-							throw new CodecException(e);
+						if (tileEntitiesMap.containsKey(pt)) {
+							tileEntityStates.put(index, new CompoundTag(tileEntitiesMap.get(pt)));
 						}
 					}
 				}
 			}
 			
-			floor = new SimpleClipboardFloor(name, clipboard);
+			floor = new CompactFloor(name, region, origin, states, tileEntityStates);
 		} finally {
 			rl.unlock();
 		}
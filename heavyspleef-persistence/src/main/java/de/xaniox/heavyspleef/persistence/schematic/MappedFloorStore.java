@@ -0,0 +1,407 @@
+/*
+ * This file is part of HeavySpleef.
+ * Copyright (c) 2014-2016 Matthias Werning
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.xaniox.heavyspleef.persistence.schematic;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.sk89q.jnbt.*;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.bukkit.BukkitUtil;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.World;
+import de.xaniox.heavyspleef.core.floor.CompactFloor;
+import de.xaniox.heavyspleef.core.floor.Floor;
+import de.xaniox.heavyspleef.persistence.RegionType;
+import org.bukkit.Bukkit;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Stores all floors of a game in one uncompressed file:
+ * 
+ *   int magic, int version, int header length,
+ *   uncompressed NBT header describing every floor,
+ *   block states of all floors as big endian shorts (id << 4 | data)
+ * 
+ * Block states are memory mapped only once a floor is accessed, so that
+ * idle games do not keep their floors on the heap. Windows refuses to replace
+ * or delete a file while it is mapped and mappings can only be released by the
+ * garbage collector, so floors are read onto the heap there instead
+ */
+public class MappedFloorStore {
+	
+	public static final String FILE_NAME = "floors.map";
+	
+	private static final int MAGIC = 0x48534650;
+	private static final int VERSION = 1;
+	private static final int PREAMBLE_LENGTH = 12;
+	private static final String ROOT_TAG_NAME = "floor-map";
+	private static final boolean MAPPING_SUPPORTED = !System.getProperty("os.name", "").toLowerCase().startsWith("windows");
+	
+	//Lock for bukkit related calls
+	private final ReentrantLock bukkitLock = new ReentrantLock();
+	/* Files which are still open because some of their floors have not been mapped yet */
+	private final ListMultimap<File, MappedFile> openFiles = ArrayListMultimap.create();
+	
+	@SuppressWarnings("unchecked")
+	public void write(File file, Collection<Floor> floors) throws IOException {
+		List<Tag> floorTags = Lists.newArrayList();
+		long offset = 0;
+		
+		for (Floor floor : floors) {
+			Region region = floor.getRegion();
+			Map<String, Tag> metadataMap = Maps.newHashMap();
+			SchematicRegionMetadataCodec<Region> metadataCodec = (SchematicRegionMetadataCodec<Region>) FloorAccessor.getMetadataCodec(region.getClass());
+			metadataCodec.apply(metadataMap, region);
+			
+			Vector origin = floor instanceof CompactFloor ? ((CompactFloor) floor).getOrigin() : floor.getClipboard().getOrigin();
+			List<Tag> originCoordinates = Lists.newArrayList();
+			originCoordinates.add(new IntTag(origin.getBlockX()));
+			originCoordinates.add(new IntTag(origin.getBlockY()));
+			originCoordinates.add(new IntTag(origin.getBlockZ()));
+			
+			Map<String, Tag> childs = Maps.newHashMap();
+			childs.put("name", new StringTag(floor.getName()));
+			childs.put("world", new StringTag(region.getWorld().getName()));
+			childs.put("regiontype", new StringTag(RegionType.byRegionType(region.getClass()).getPersistenceName()));
+			childs.put("metadata", new CompoundTag(metadataMap));
+			childs.put("origin", new ListTag(IntTag.class, originCoordinates));
+			childs.put("offset", new LongTag(offset));
+			childs.put("tileentities", new ListTag(CompoundTag.class, collectTileEntities(floor)));
+			
+			floorTags.add(new CompoundTag(childs));
+			offset += (long) region.getWidth() * region.getHeight() * region.getLength() * 2;
+		}
+		
+		Map<String, Tag> rootChilds = Maps.newHashMap();
+		rootChilds.put("floors", new ListTag(CompoundTag.class, floorTags));
+		
+		ByteArrayOutputStream headerOut = new ByteArrayOutputStream();
+		try (NBTOutputStream nbtOut = new NBTOutputStream(headerOut)) {
+			nbtOut.writeNamedTag(ROOT_TAG_NAME, new CompoundTag(rootChilds));
+		}
+		
+		byte[] header = headerOut.toByteArray();
+		
+		//Never write into the current file as floors of running games may still be mapped to it
+		File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+		
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(header.length);
+			out.write(header);
+			
+			for (Floor floor : floors) {
+				writeStates(out, floor);
+			}
+		}
+		
+		release(file);
+		Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	/**
+	 * Closes all channels to the given file. Floors read from it which have
+	 * not been accessed yet are loaded onto the heap, so that the file may
+	 * be replaced, moved or deleted afterwards
+	 */
+	public void release(File file) throws IOException {
+		List<MappedFile> mappedFiles;
+		
+		synchronized (openFiles) {
+			mappedFiles = openFiles.removeAll(file.getAbsoluteFile());
+		}
+		
+		for (MappedFile mappedFile : mappedFiles) {
+			mappedFile.detach();
+		}
+	}
+	
+	private List<Tag> collectTileEntities(Floor floor) {
+		List<Tag> tileEntities = Lists.newArrayList();
+		BlockReader reader = new BlockReader(floor);
+		Region region = floor.getRegion();
+		
+		for (int y = 0; y < region.getHeight(); y++) {
+			for (int z = 0; z < region.getLength(); z++) {
+				for (int x = 0; x < region.getWidth(); x++) {
+					BaseBlock block = reader.getBlock(x, y, z);
+					CompoundTag rawTag = block.getNbtData();
+					if (rawTag == null) {
+						continue;
+					}
+					
+					Map<String, Tag> values = Maps.newHashMap(rawTag.getValue());
+					values.put("id", new StringTag(block.getNbtId()));
+					values.put("x", new IntTag(x));
+					values.put("y", new IntTag(y));
+					values.put("z", new IntTag(z));
+					
+					tileEntities.add(new CompoundTag(values));
+				}
+			}
+		}
+		
+		return tileEntities;
+	}
+	
+	private void writeStates(DataOutputStream out, Floor floor) throws IOException {
+		BlockReader reader = new BlockReader(floor);
+		Region region = floor.getRegion();
+		
+		for (int y = 0; y < region.getHeight(); y++) {
+			for (int z = 0; z < region.getLength(); z++) {
+				for (int x = 0; x < region.getWidth(); x++) {
+					BaseBlock block = reader.getBlock(x, y, z);
+					out.writeShort(block.getId() << 4 | block.getData() & 0x0F);
+				}
+			}
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	public List<Floor> read(File file) throws IOException {
+		final MappedFile mappedFile = new MappedFile(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+		List<Floor> floors = Lists.newArrayList();
+		
+		try {
+			ByteBuffer preamble = ByteBuffer.allocate(PREAMBLE_LENGTH);
+			readFully(mappedFile.channel, preamble, 0);
+			preamble.flip();
+			
+			if (preamble.getInt() != MAGIC) {
+				throw new CodecException("File " + file.getName() + " is not a mapped floor file");
+			}
+			
+			int version = preamble.getInt();
+			if (version != VERSION) {
+				throw new CodecException("Unsupported mapped floor file version " + version);
+			}
+			
+			ByteBuffer header = ByteBuffer.allocate(preamble.getInt());
+			readFully(mappedFile.channel, header, PREAMBLE_LENGTH);
+			final long dataStart = PREAMBLE_LENGTH + header.capacity();
+			
+			NamedTag namedRootTag;
+			try (NBTInputStream nbtIn = new NBTInputStream(new ByteArrayInputStream(header.array()))) {
+				namedRootTag = nbtIn.readNamedTag();
+			}
+			
+			if (!namedRootTag.getName().equals(ROOT_TAG_NAME)) {
+				throw new CodecException("Could not find root tag name with name \"" + ROOT_TAG_NAME + "\"");
+			}
+			
+			Map<String, Tag> rootChilds = ((CompoundTag) namedRootTag.getTag()).getValue();
+			List<Tag> floorTags = ((ListTag) rootChilds.get("floors")).getValue();
+			
+			for (Tag tag : floorTags) {
+				Map<String, Tag> childs = ((CompoundTag) tag).getValue();
+				
+				String name = ((StringTag) childs.get("name")).getValue();
+				String worldName = ((StringTag) childs.get("world")).getValue();
+				RegionType regionType = RegionType.byPersistenceName(((StringTag) childs.get("regiontype")).getValue());
+				Map<String, Tag> metadataMap = ((CompoundTag) childs.get("metadata")).getValue();
+				
+				SchematicRegionMetadataCodec<Region> metadataCodec = (SchematicRegionMetadataCodec<Region>) FloorAccessor.getMetadataCodec(regionType.getRegionClass());
+				Region region = metadataCodec.asRegion(metadataMap);
+				region.setWorld(getWorld(worldName));
+				
+				List<Tag> originCoordinates = ((ListTag) childs.get("origin")).getValue();
+				Vector origin = new Vector(((IntTag) originCoordinates.get(0)).getValue(), ((IntTag) originCoordinates.get(1)).getValue(), 
+						((IntTag) originCoordinates.get(2)).getValue());
+				
+				final int width = region.getWidth();
+				final int length = region.getLength();
+				final long position = dataStart + ((LongTag) childs.get("offset")).getValue();
+				final long size = (long) width * region.getHeight() * length * 2;
+				
+				Map<Integer, CompoundTag> tileEntities = Maps.newHashMap();
+				for (Tag tileEntityTag : ((ListTag) childs.get("tileentities")).getValue()) {
+					Map<String, Tag> values = ((CompoundTag) tileEntityTag).getValue();
+					int x = ((IntTag) values.get("x")).getValue();
+					int y = ((IntTag) values.get("y")).getValue();
+					int z = ((IntTag) values.get("z")).getValue();
+					
+					tileEntities.put(y * width * length + z * width + x, (CompoundTag) tileEntityTag);
+				}
+				
+				MappedRegion mappedRegion = new MappedRegion(mappedFile, position, size);
+				mappedFile.pendingRegions.add(mappedRegion);
+				floors.add(new CompactFloor(name, region, origin, mappedRegion, tileEntities));
+			}
+		} catch (ClassCastException | NullPointerException e) {
+			mappedFile.close();
+			throw new CodecException("Malformed mapped floor file " + file.getName(), e);
+		} catch (IOException e) {
+			mappedFile.close();
+			throw e;
+		}
+		
+		if (!MAPPING_SUPPORTED || mappedFile.pendingRegions.isEmpty()) {
+			mappedFile.detach();
+		} else {
+			synchronized (openFiles) {
+				openFiles.put(file.getAbsoluteFile(), mappedFile);
+			}
+		}
+		
+		return floors;
+	}
+	
+	private World getWorld(String worldName) {
+		org.bukkit.World bukkitWorld;
+		bukkitLock.lock();
+		
+		try {
+			bukkitWorld = Bukkit.getWorld(worldName);
+		} finally {
+			bukkitLock.unlock();
+		}
+		
+		return BukkitUtil.getLocalWorld(bukkitWorld);
+	}
+	
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position + buffer.position());
+			if (read < 0) {
+				throw new EOFException("Unexpected end of mapped floor file");
+			}
+		}
+	}
+	
+	/* Keeps the channel open until every floor has been mapped or the file is released */
+	private static class MappedFile {
+		
+		private final FileChannel channel;
+		private final List<MappedRegion> pendingRegions;
+		
+		public MappedFile(FileChannel channel) {
+			this.channel = channel;
+			this.pendingRegions = Lists.newArrayList();
+		}
+		
+		public synchronized ShortBuffer load(MappedRegion region) {
+			if (region.buffer != null) {
+				return region.buffer;
+			}
+			
+			try {
+				region.buffer = channel.map(FileChannel.MapMode.READ_ONLY, region.position, region.size).asShortBuffer();
+			} catch (IOException e) {
+				throw new RuntimeException("Could not map floor data", e);
+			}
+			
+			pendingRegions.remove(region);
+			if (pendingRegions.isEmpty()) {
+				//Mappings stay valid after the channel has been closed
+				close();
+			}
+			
+			return region.buffer;
+		}
+		
+		/* Reads all floors which have not been mapped yet onto the heap and closes the channel */
+		public synchronized void detach() throws IOException {
+			try {
+				for (MappedRegion region : pendingRegions) {
+					ByteBuffer buffer = ByteBuffer.allocate((int) region.size);
+					readFully(channel, buffer, region.position);
+					buffer.flip();
+					
+					region.buffer = buffer.asShortBuffer();
+				}
+				
+				pendingRegions.clear();
+			} finally {
+				close();
+			}
+		}
+		
+		public synchronized void close() {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				//Nothing to do here
+			}
+		}
+		
+	}
+	
+	/* Block states of a single floor, which are loaded at most once */
+	private static class MappedRegion implements Supplier<ShortBuffer> {
+		
+		private final MappedFile file;
+		private final long position;
+		private final long size;
+		/* Guarded by the lock of the file */
+		private ShortBuffer buffer;
+		
+		public MappedRegion(MappedFile file, long position, long size) {
+			this.file = file;
+			this.position = position;
+			this.size = size;
+		}
+		
+		@Override
+		public ShortBuffer get() {
+			return file.load(this);
+		}
+		
+	}
+	
+	/* Reads blocks by their position relative to the minimum point */
+	private static class BlockReader {
+		
+		private final CompactFloor compactFloor;
+		private final Clipboard clipboard;
+		private final Vector min;
+		
+		public BlockReader(Floor floor) {
+			this.compactFloor = floor instanceof CompactFloor ? (CompactFloor) floor : null;
+			this.clipboard = compactFloor == null ? floor.getClipboard() : null;
+			this.min = floor.getRegion().getMinimumPoint();
+		}
+		
+		public BaseBlock getBlock(int x, int y, int z) {
+			if (compactFloor != null) {
+				return compactFloor.getBlock(min.getBlockX() + x, min.getBlockY() + y, min.getBlockZ() + z);
+			}
+			
+			return clipboard.getBlock(min.add(x, y, z));
+		}
+		
+	}
+
+}
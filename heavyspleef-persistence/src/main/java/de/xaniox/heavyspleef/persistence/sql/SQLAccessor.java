@@ -22,6 +22,7 @@ import de.xaniox.heavyspleef.persistence.sql.SQLDatabaseContext.SQLImplementatio
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -37,6 +38,16 @@ public abstract class SQLAccessor<T, K> implements ObjectDatabaseAccessor<T> {
 	
 	public abstract void write(T object, Connection connection) throws SQLException;
 	
+	/**
+	 * Writes several objects using the same connection. The caller
+	 * is responsible for wrapping this call into a transaction
+	 */
+	public void writeBatch(Collection<T> objects, Connection connection) throws SQLException {
+		for (T object : objects) {
+			write(object, connection);
+		}
+	}
+	
 	public abstract T fetch(K key, Connection connection) throws SQLException;
 	
 	public List<T> fetchAll(Connection connection) throws SQLException {
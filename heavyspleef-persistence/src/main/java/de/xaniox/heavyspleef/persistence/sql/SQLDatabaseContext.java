@@ -203,6 +203,32 @@ public class SQLDatabaseContext extends DatabaseContext<SQLAccessor<?, ?>> {
 		}
 	}
 	
+	@SuppressWarnings("unchecked")
+	public <T> void writeObjects(Class<T> objectClass, Collection<T> objects) throws SQLException {
+		if (objects.isEmpty()) {
+			return;
+		}
+		
+		SQLAccessor<T, ?> accessor = (SQLAccessor<T, ?>) searchAccessor(objectClass);
+		
+		try (Connection connection = getConnectionFromPool()) {
+			checkAccessorTable(accessor, connection);
+			
+			boolean autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			
+			try {
+				accessor.writeBatch(objects, connection);
+				connection.commit();
+			} catch (SQLException e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				connection.setAutoCommit(autoCommit);
+			}
+		}
+	}
+	
 	@SuppressWarnings("unchecked")
 	public <T, K> T readObject(K key, Class<T> objectClass) throws SQLException {
 		SQLAccessor<T, K> accessor = (SQLAccessor<T, K>) searchAccessor(objectClass);
@@ -26,13 +26,17 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 public class StatisticAccessor extends SQLAccessor<Statistic, UUID> {
 	
+	private static final int MAX_BATCH_SIZE = 500;
+	
 	@Override
 	public Class<Statistic> getObjectClass() {
 		return Statistic.class;
@@ -62,6 +66,58 @@ public class StatisticAccessor extends SQLAccessor<Statistic, UUID> {
 
 	@Override
 	public void write(Statistic object, Connection connection) throws SQLException {
+		try (PreparedStatement insertStatement = connection.prepareStatement(buildInsertSql())) {
+			setInsertValues(insertStatement, object);
+			insertStatement.executeUpdate();
+		}
+		
+		if (getSqlImplementation() == SQLImplementation.SQLITE) {
+			try (PreparedStatement updateStatement = connection.prepareStatement(buildUpdateSql())) {
+				setUpdateValues(updateStatement, object);
+				updateStatement.executeUpdate();
+			}
+		}
+	}
+	
+	@Override
+	public void writeBatch(Collection<Statistic> objects, Connection connection) throws SQLException {
+		boolean sqlite = getSqlImplementation() == SQLImplementation.SQLITE;
+		
+		//Prepare the statements once and reuse them for every statistic
+		try (PreparedStatement insertStatement = connection.prepareStatement(buildInsertSql());
+				PreparedStatement updateStatement = sqlite ? connection.prepareStatement(buildUpdateSql()) : null) {
+			int batched = 0;
+			
+			for (Statistic statistic : objects) {
+				setInsertValues(insertStatement, statistic);
+				insertStatement.addBatch();
+				
+				if (sqlite) {
+					setUpdateValues(updateStatement, statistic);
+					updateStatement.addBatch();
+				}
+				
+				if (++batched % MAX_BATCH_SIZE == 0) {
+					executeBatches(insertStatement, updateStatement);
+				}
+			}
+			
+			if (batched % MAX_BATCH_SIZE != 0) {
+				executeBatches(insertStatement, updateStatement);
+			}
+		}
+	}
+	
+	private static void executeBatches(PreparedStatement insertStatement, PreparedStatement updateStatement) throws SQLException {
+		//Inserts must run first as the updates rely on the rows being present
+		insertStatement.executeBatch();
+		
+		if (updateStatement != null) {
+			updateStatement.executeBatch();
+		}
+	}
+	
+	private String buildInsertSql() {
 		StringBuilder insertSql = new StringBuilder("INSERT ");
 		if (getSqlImplementation() == SQLImplementation.SQLITE) {
 			insertSql.append("OR IGNORE ");
@@ -87,41 +143,40 @@ public class StatisticAccessor extends SQLAccessor<Statistic, UUID> {
 		}
 		
 		insertSql.append(';');
-		try (PreparedStatement insertStatement = connection.prepareStatement(insertSql.toString())) {
-			setValues(insertStatement, object, true, 1);
+		return insertSql.toString();
+	}
+	
+	private String buildUpdateSql() {
+		StringBuilder updateSql = new StringBuilder("UPDATE ");
+		updateSql.append(ColumnContract.TABLE_NAME).append(" SET ");
+		
+		String[] allColumns = ColumnContract.ALL_COLUMNS;
+		for (int i = 0; i < allColumns.length; i++) {
+			String column = allColumns[i];
+			updateSql.append(column + "=?");
 			
-			if (getSqlImplementation() == SQLImplementation.MYSQL) {
-				setValues(insertStatement, object, true, 10);
+			if (i + 1 < allColumns.length) {
+				updateSql.append(',');
 			}
-			
-			insertStatement.executeUpdate();
 		}
 		
-		if (getSqlImplementation() == SQLImplementation.SQLITE) {
-			StringBuilder updateSql = new StringBuilder("UPDATE ");
-			updateSql.append(ColumnContract.TABLE_NAME).append(" SET ");
-			
-			String[] allColumns = ColumnContract.ALL_COLUMNS;
-			for (int i = 0; i < allColumns.length; i++) {
-				String column = allColumns[i];
-				updateSql.append(column + "=?");
-				
-				if (i + 1 < allColumns.length) {
-					updateSql.append(',');
-				}
-			}
-			
-			updateSql.append(" WHERE " + ColumnContract.UUID + "=?");
-			
-			try (PreparedStatement updateStatement = connection.prepareStatement(updateSql.toString())) {
-				setValues(updateStatement, object, true, 1);
-
-				updateStatement.setString(10, object.getUniqueIdentifier().toString());
-				updateStatement.executeUpdate();
-			}
+		updateSql.append(" WHERE " + ColumnContract.UUID + "=?");
+		return updateSql.toString();
+	}
+	
+	private void setInsertValues(PreparedStatement insertStatement, Statistic object) throws SQLException {
+		setValues(insertStatement, object, true, 1);
+		
+		if (getSqlImplementation() == SQLImplementation.MYSQL) {
+			setValues(insertStatement, object, true, 10);
 		}
 	}
 	
+	private void setUpdateValues(PreparedStatement updateStatement, Statistic object) throws SQLException {
+		setValues(updateStatement, object, true, 1);
+		updateStatement.setString(10, object.getUniqueIdentifier().toString());
+	}
+	
 	private void addColumnSignature(StringBuilder builder) {
 		builder.append(ColumnContract.UUID).append(", ");
 		builder.append(ColumnContract.LAST_NAME).append(", ");
@@ -143,6 +198,9 @@ public class StatisticAccessor extends SQLAccessor<Statistic, UUID> {
 		
 		if (statistic.getLastName() != null) {
 			statement.setString(index++, statistic.getLastName());
+		} else {
+			//Keep the parameter indices stable for reused statements
+			statement.setNull(index++, Types.CHAR);
 		}
 		
 		statement.setInt(index++, statistic.getWins());